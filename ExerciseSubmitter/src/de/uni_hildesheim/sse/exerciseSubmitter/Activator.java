@@ -2,13 +2,9 @@ package de.uni_hildesheim.sse.exerciseSubmitter;
 
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.StringTokenizer;
-import java.util.Timer;
-import java.util.TimerTask;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -19,12 +15,16 @@ import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
 import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.BuildCoalescer;
 import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.GuiUtils;
 import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.GuiUtils.DialogType;
+import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.HardLinkGuard;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.
     CommunicationException;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.LoginSession;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.
     SubmissionCommunication;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.SubmissionPlugin;
 import net.ssehub.exercisesubmitter.protocol.backend.ForbiddenException;
 import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
 import net.ssehub.exercisesubmitter.protocol.backend.ServerNotFoundException;
@@ -65,13 +65,6 @@ public class Activator extends AbstractUIPlugin {
      */
     private static URL baseURL;
     
-    /**
-     * A timer for executing timer tasks.
-     * 
-     * @since 2.00
-     */
-    private static Timer timer = new Timer();
-    
     /**
      * Stores if this plugin should run in reviewer 
      * mode.
@@ -209,6 +202,24 @@ public class Activator extends AbstractUIPlugin {
         return builder.toString();
     }
     
+    /**
+     * Returns the maximum delay of contacting the servers in the background
+     * after starting up. User actions contact the servers immediately.
+     *
+     * @return the maximum delay in milliseconds
+     *
+     * @since 2.4
+     */
+    private static long getStartupDelay() {
+        long seconds;
+        try {
+            seconds = Long.parseLong(IConfiguration.INSTANCE.getProperty("auth.startup.delay", "30").trim());
+        } catch (NumberFormatException e) {
+            seconds = 30;
+        }
+        return Math.max(0, seconds) * 1000;
+    }
+
     /**
      * Starts up this plug-in.<br/> If this method throws an exception, it is
      * taken as an indication that plug-in initialization has failed; as a
@@ -236,25 +247,25 @@ public class Activator extends AbstractUIPlugin {
         if (isValidString(IConfiguration.INSTANCE.getUserName())
             && isValidString(IConfiguration.INSTANCE.getPassword())) {
             
+            // spread the logins of many machines started at the same time
+            long delay = (long) (Math.random() * getStartupDelay());
             Thread t = new Thread(new Runnable() {
                 @Override
                 public void run() {
                     try {
+                        Thread.sleep(delay);
                         SubmissionCommunication.getInstances(IConfiguration.INSTANCE, null, reviewerMode, null);
                     } catch (CommunicationException e) {
+                    } catch (InterruptedException e) {
                     }
                 }
             });
+            t.setDaemon(true);
             t.start();
         }
         
-        GregorianCalendar cal = new GregorianCalendar();
-        cal.set(Calendar.MILLISECOND, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.HOUR, 1);
-        cal.add(Calendar.DAY_OF_MONTH, 1);
-        timer.schedule(new ResetCommunicationTimerTask(), cal.getTime(), 24 * 60 * 1000);
+        HardLinkGuard.install();
+        BuildCoalescer.recover();
     }
 
     /**
@@ -288,7 +299,7 @@ public class Activator extends AbstractUIPlugin {
                 
                 if (null != username && null != password) {
                     try {
-                        reviewerMode = protocol.login(username, password);
+                        reviewerMode = LoginSession.getInstance().login(protocol, username, password);
                     } catch (UnknownCredentialsException e) {
                         reviewerMode = false;
                         GuiUtils.openDialog(DialogType.ERROR, "Credentials are unknown by the student management "
@@ -345,27 +356,6 @@ public class Activator extends AbstractUIPlugin {
         }
     }
     
-    /**
-     * A task to reset the communication information.
-     * 
-     * @author Holger Eichelberger
-     * @since 2.00
-     * @version 2.00
-     */
-    private class ResetCommunicationTimerTask extends TimerTask {
-
-        /**
-         * Executes the task.
-         * 
-         * @since 2.00
-         */
-        @Override
-        public void run() {
-            SubmissionCommunication.clearInstances();
-        }
-        
-    }
-
     /**
      * Stops this plug-in.<br/> <b>Clients must never explicitly call this
      * method.</b>
@@ -379,9 +369,12 @@ public class Activator extends AbstractUIPlugin {
     // checkstyle: stop exception type check: Forced by Eclipse API
     public void stop(BundleContext context) throws Exception {
     // checkstyle: resume exception type check
-        timer.cancel();
+        HardLinkGuard.uninstall();
         plugin = null;
         SubmissionCommunication.clearInstances();
+        for (SubmissionPlugin submissionPlugin : SubmissionPlugin.getPlugins()) {
+            submissionPlugin.shutdown();
+        }
         super.stop(context);
     }
 
@@ -26,6 +26,7 @@ import org.xml.sax.SAXException;
 
 import de.uni_hildesheim.sse.exerciseSubmitter.Activator;
 import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.GuiUtils;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.CommonStuff;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.
     CommunicationException;
 
@@ -36,7 +37,7 @@ import de.uni_hildesheim.sse.exerciseSubmitter.submission.
  * @author eichelberger
  * @author El-Sharkawy
  * @since 2.00
- * @version 2.3
+ * @version 2.4
  */
 class EclipseConfiguration extends AbstractUserConfiguration {
 
@@ -142,9 +143,12 @@ class EclipseConfiguration extends AbstractUserConfiguration {
                 if (modified) {
                     Transformer transformer = TransformerFactory.newInstance().newTransformer();
                     DOMSource source = new DOMSource(document);
-                    FileOutputStream os = new FileOutputStream(projectFile);
-                    StreamResult result = new StreamResult( os );
-                    transformer.transform(source, result);
+                    // the project file may be shared with other replays via hard links
+                    CommonStuff.breakHardLink(projectFile);
+                    try (FileOutputStream os = new FileOutputStream(projectFile)) {
+                        StreamResult result = new StreamResult(os);
+                        transformer.transform(source, result);
+                    }
                 }
             } catch (TransformerConfigurationException e) {
             } catch (TransformerException e) {
@@ -155,4 +159,24 @@ class EclipseConfiguration extends AbstractUserConfiguration {
         }
     }
 
+    /**
+     * Returns the state location of this plug-in as cache directory.
+     * 
+     * @return the (existing) cache directory
+     * 
+     * @since 2.4
+     */
+    @Override
+    public File getCacheDirectory() {
+        File result;
+        Activator plugin = Activator.getDefault();
+        if (null != plugin) {
+            result = plugin.getStateLocation().toFile();
+        } else {
+            result = new File(System.getProperty("java.io.tmpdir"), Activator.PLUGIN_ID);
+        }
+        result.mkdirs();
+        return result;
+    }
+
 }
@@ -199,6 +199,16 @@ public abstract class IConfiguration {
      * @since 2.00
      */
     public abstract void adjustFilesAfterReplay(File targetDir);
+
+    /**
+     * Returns the directory where local (non-critical) caches may be stored
+     * in, e.g., information about replayed submissions.
+     * 
+     * @return the (existing) cache directory
+     * 
+     * @since 2.4
+     */
+    public abstract File getCacheDirectory();
     
     /**
      * Sets the currently reviewed assignment.
@@ -4,7 +4,7 @@ package de.uni_hildesheim.sse.exerciseSubmitter.configuration;
  * Constant definitions for plug-in preferences.
  * 
  * @since 2.00
- * @version 2.2
+ * @version 2.4
  * @author eichelberger
  * @author El-Sharkawy
  */
@@ -31,6 +31,14 @@ public class PreferenceConstants {
      */
     public static final String ASSIGNMENT = "net.ssehub.exercisesubmitter.assignment";
 
+    /**
+     * Defines the preference constant recording that auto-building was
+     * switched off temporarily and must be restored.
+     * 
+     * @since 2.4
+     */
+    public static final String AUTO_BUILD_SUSPENDED = "net.ssehub.exercisesubmitter.autoBuildSuspended";
+
     /**
      * Prevents this class from being initialized from outside.
      * 
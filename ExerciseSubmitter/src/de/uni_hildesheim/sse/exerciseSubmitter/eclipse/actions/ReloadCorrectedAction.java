@@ -1,13 +1,16 @@
 package de.uni_hildesheim.sse.exerciseSubmitter.eclipse.actions;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
+import org.eclipse.core.resources.IProject;
 import org.eclipse.jface.action.IAction;
 import org.eclipse.jface.viewers.ISelection;
 
 import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
 import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.AssignmentProjectMap;
+import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.BuildCoalescer;
 import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.GuiUtils;
 import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.ISubmissionProject;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.ISubmission;
@@ -57,16 +60,23 @@ public class ReloadCorrectedAction extends AbstractSubmissionAction {
             for (SubmissionCommunication comm : connections) {
                 if (comm.allowsReplay() && ServerAuthentication.getInstance().authenticate(comm, false)) {
                     AssignmentProjectMap exercisesMap = mapProjects(comm.getSubmissionsForReplay(), true, comm);
-                    
-                    for (AssignmentProjectMap.Entry entry : exercisesMap) {
-                        ISubmissionProject project = entry.getProject();
-                        if (project.confirmOverwritingProject()) {
-                            ISubmission abgabe = new Submission();
-                            abgabe.setPath(new File(entry.getProject().getPath()));
-                            GuiUtils.runReplay("Replaying corrected submission", comm, abgabe, entry.getAssignment(), 
-                                project);
-                            project.refresh();
+                    List<IProject> replayed = new ArrayList<IProject>();
+                    // build the replayed projects once after all replays
+                    BuildCoalescer.suspend();
+                    try {
+                        for (AssignmentProjectMap.Entry entry : exercisesMap) {
+                            ISubmissionProject project = entry.getProject();
+                            if (project.confirmOverwritingProject()) {
+                                ISubmission abgabe = new Submission();
+                                abgabe.setPath(new File(entry.getProject().getPath()));
+                                GuiUtils.runReplay("Replaying corrected submission", comm, abgabe,
+                                    entry.getAssignment(), project);
+                                project.refresh(abgabe.getChangedPaths());
+                                replayed.add(project.getProject());
+                            }
                         }
+                    } finally {
+                        BuildCoalescer.resume(replayed);
                     }
                 }
             }
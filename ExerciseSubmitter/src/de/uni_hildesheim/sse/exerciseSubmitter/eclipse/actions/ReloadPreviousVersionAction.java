@@ -2,6 +2,7 @@ package de.uni_hildesheim.sse.exerciseSubmitter.eclipse.actions;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.eclipse.jface.action.IAction;
@@ -9,6 +10,7 @@ import org.eclipse.jface.viewers.ISelection;
 
 import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
 import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.AssignmentProjectMap;
+import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.BuildCoalescer;
 import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.GuiUtils;
 import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.ISubmissionProject;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.
@@ -28,10 +30,25 @@ import net.ssehub.exercisesubmitter.protocol.frontend.Assignment;
  * 
  * @author Holger Eichelberger
  * @since 2.0
- * @version 2.0
+ * @version 2.4
  */
 public class ReloadPreviousVersionAction extends AbstractSubmissionAction {
 
+    /**
+     * Stores the number of versions shown at once, further versions are
+     * loaded on demand.
+     * 
+     * @since 2.4
+     */
+    private static final int PAGE_SIZE = 20;
+
+    /**
+     * Stores the list entry requesting older versions.
+     * 
+     * @since 2.4
+     */
+    private static final String LOAD_OLDER = "... load older versions";
+
     /**
      * Creates a new action object (called by eclipse via extension information
      * in the manifest/plugin.xml).
@@ -69,13 +86,13 @@ public class ReloadPreviousVersionAction extends AbstractSubmissionAction {
                     for (AssignmentProjectMap.Entry entry : exercisesMap) {
                         try {
                             List<IVersionedSubmission> submissions = comm.getSubmissionsForReplay(
-                                entry.getAssignment());
+                                entry.getAssignment(), -1, PAGE_SIZE);
                             
                             if (submissions.isEmpty()) {
                                 GuiUtils.openDialog(GuiUtils.DialogType.INFORMATION,
                                     "This task was not submitted so far - no data to replay.");
                             } else {
-                                replay(comm, submissions, entry.getProject());
+                                replay(comm, entry.getAssignment(), submissions, entry.getProject());
                                 break;
                             }
                         } catch (CommunicationException e) {
@@ -128,26 +145,49 @@ public class ReloadPreviousVersionAction extends AbstractSubmissionAction {
     }
     
     /**
-     * Executes the replay.
+     * Executes the replay. The versions are shown the most recent first, older versions are loaded on request.
      * 
      * @param comm the communication instance
-     * @param submissions the submissions to be replayed
+     * @param assignment the assignment of the project
+     * @param submissions the first page of the submissions to be replayed
      * @param project The selected project
+     * @throws CommunicationException if loading older versions fails
      * 
      * @since 1.00
      */
-    private void replay(SubmissionCommunication comm, List<IVersionedSubmission> submissions, 
-        ISubmissionProject project) {
+    private void replay(SubmissionCommunication comm, Assignment assignment, List<IVersionedSubmission> submissions,
+        ISubmissionProject project) throws CommunicationException {
         
-        Object[] result = GuiUtils.showListDialog("Replay project '" + project.getName() + "'",
-            "Select the date of the version to be replayed", submissions, true);
+        List<IVersionedSubmission> versions = new ArrayList<IVersionedSubmission>(submissions);
+        boolean more = versions.size() >= PAGE_SIZE;
+        Object[] result;
+        do {
+            List<Object> items = new ArrayList<Object>(versions);
+            if (more) {
+                items.add(LOAD_OLDER);
+            }
+            result = GuiUtils.showListDialog("Replay project '" + project.getName() + "'",
+                "Select the date of the version to be replayed", items, true);
+            if (null != result && result.length > 0 && LOAD_OLDER == result[0]) {
+                List<IVersionedSubmission> older = comm.getSubmissionsForReplay(assignment,
+                    versions.get(versions.size() - 1).getRevision() - 1, PAGE_SIZE);
+                versions.addAll(older);
+                more = older.size() >= PAGE_SIZE;
+            }
+        } while (null != result && result.length > 0 && LOAD_OLDER == result[0]);
 
         if (null != result && result.length > 0) {
             if (project.confirmOverwritingProject()) {
                 ISubmission abgabe = new Submission();
                 abgabe.setPath(new File(project.getPath()));
-                GuiUtils.runReplay("Replaying submission", comm, abgabe, (IVersionedSubmission) result[0], project);
-                project.refresh();
+                BuildCoalescer.suspend();
+                try {
+                    GuiUtils.runReplay("Replaying submission", comm, abgabe, (IVersionedSubmission) result[0],
+                        project);
+                    project.refresh(abgabe.getChangedPaths());
+                } finally {
+                    BuildCoalescer.resume(Collections.singleton(project.getProject()));
+                }
             }
         }
     }
@@ -0,0 +1,214 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.eclipse.efs;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileInfo;
+import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.filesystem.provider.FileInfo;
+import org.eclipse.core.filesystem.provider.FileStore;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.CommunicationException;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.SubmissionDirEntry;
+
+/**
+ * Represents a file or directory of a server-stored submission (see
+ * {@link SubmissionFileSystem}). Stores are lightweight, the contents are
+ * loaded via the browser of the submission on demand. All stores are
+ * read-only.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class SubmissionFileStore extends FileStore {
+
+    /**
+     * Stores the file system.
+     *
+     * @since 2.4
+     */
+    private SubmissionFileSystem fileSystem;
+
+    /**
+     * Stores the name of the assignment.
+     *
+     * @since 2.4
+     */
+    private String assignment;
+
+    /**
+     * Stores the name of the submission including the optional revision.
+     *
+     * @since 2.4
+     */
+    private String submission;
+
+    /**
+     * Stores the path within the submission, empty for the submission
+     * directory.
+     *
+     * @since 2.4
+     */
+    private String path;
+
+    /**
+     * Creates a store from a URI.
+     *
+     * @param fileSystem the file system
+     * @param uri the URI
+     *
+     * @since 2.4
+     */
+    SubmissionFileStore(SubmissionFileSystem fileSystem, URI uri) {
+        this.fileSystem = fileSystem;
+        this.assignment = uri.getAuthority();
+        String uriPath = null == uri.getPath() ? "" : uri.getPath().replaceAll("^/+|/+$", "");
+        int pos = uriPath.indexOf('/');
+        this.submission = pos < 0 ? uriPath : uriPath.substring(0, pos);
+        this.path = pos < 0 ? "" : uriPath.substring(pos + 1);
+    }
+
+    /**
+     * Creates a store for another path of the same submission.
+     *
+     * @param parent a store of the submission
+     * @param path the path within the submission
+     *
+     * @since 2.4
+     */
+    private SubmissionFileStore(SubmissionFileStore parent, String path) {
+        this.fileSystem = parent.fileSystem;
+        this.assignment = parent.assignment;
+        this.submission = parent.submission;
+        this.path = path;
+    }
+
+    @Override
+    public String[] childNames(int options, IProgressMonitor monitor) throws CoreException {
+        List<SubmissionDirEntry> entries = list(path);
+        String[] result = new String[entries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = entries.get(i).getPath();
+        }
+        return result;
+    }
+
+    @Override
+    public IFileInfo[] childInfos(int options, IProgressMonitor monitor) throws CoreException {
+        List<SubmissionDirEntry> entries = list(path);
+        IFileInfo[] result = new IFileInfo[entries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = toInfo(entries.get(i));
+        }
+        return result;
+    }
+
+    @Override
+    public IFileInfo fetchInfo(int options, IProgressMonitor monitor) throws CoreException {
+        FileInfo result;
+        if (path.isEmpty()) {
+            // opens the submission, i.e., fails if it does not exist
+            fileSystem.getBrowser(assignment, submission);
+            result = new FileInfo(getName());
+            result.setExists(true);
+            result.setDirectory(true);
+            result.setAttribute(EFS.ATTRIBUTE_READ_ONLY, true);
+        } else {
+            result = new FileInfo(getName());
+            for (SubmissionDirEntry entry : list(getParentPath())) {
+                if (entry.getPath().equals(getName())) {
+                    result = toInfo(entry);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public IFileStore getChild(String name) {
+        return new SubmissionFileStore(this, path.isEmpty() ? name : path + "/" + name);
+    }
+
+    @Override
+    public String getName() {
+        return path.isEmpty() ? submission : path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    @Override
+    public IFileStore getParent() {
+        return path.isEmpty() ? null : new SubmissionFileStore(this, getParentPath());
+    }
+
+    @Override
+    public InputStream openInputStream(int options, IProgressMonitor monitor) throws CoreException {
+        try {
+            return fileSystem.getBrowser(assignment, submission).open(path);
+        } catch (CommunicationException e) {
+            throw SubmissionFileSystem.createException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public URI toURI() {
+        try {
+            return new URI(SubmissionFileSystem.SCHEME, assignment, "/" + submission
+                + (path.isEmpty() ? "" : "/" + path), null, null);
+        } catch (URISyntaxException e) {
+            // illegal characters are quoted, the authority is not parsed as server
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the path of the parent directory within the submission.
+     *
+     * @return the path, empty for the submission directory
+     *
+     * @since 2.4
+     */
+    private String getParentPath() {
+        int pos = path.lastIndexOf('/');
+        return pos < 0 ? "" : path.substring(0, pos);
+    }
+
+    /**
+     * Lists a directory of the submission.
+     *
+     * @param dir the path of the directory
+     * @return the entries
+     * @throws CoreException in the case of communication errors
+     *
+     * @since 2.4
+     */
+    private List<SubmissionDirEntry> list(String dir) throws CoreException {
+        try {
+            return fileSystem.getBrowser(assignment, submission).list(dir);
+        } catch (CommunicationException e) {
+            throw SubmissionFileSystem.createException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Converts a directory entry into a file info.
+     *
+     * @param entry the entry
+     * @return the file info
+     *
+     * @since 2.4
+     */
+    private static FileInfo toInfo(SubmissionDirEntry entry) {
+        FileInfo result = new FileInfo(entry.getPath());
+        result.setExists(true);
+        result.setDirectory(entry.isDirectory());
+        result.setLength(entry.isDirectory() ? EFS.NONE : entry.getSize());
+        result.setLastModified(null == entry.getDate() ? EFS.NONE : entry.getDate().getTime());
+        result.setAttribute(EFS.ATTRIBUTE_READ_ONLY, true);
+        return result;
+    }
+
+}
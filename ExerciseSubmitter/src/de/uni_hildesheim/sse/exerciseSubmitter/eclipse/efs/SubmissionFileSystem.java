@@ -0,0 +1,141 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.eclipse.efs;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.filesystem.provider.FileSystem;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.Activator;
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.CommunicationException;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.ISubmissionBrowser;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.SubmissionCommunication;
+import net.ssehub.exercisesubmitter.protocol.frontend.Assignment;
+
+/**
+ * Realizes the read-only file system of the scheme
+ * <code>svnsubmission</code>, which shows server-stored submissions without
+ * replaying them. A URI has the form
+ * <code>svnsubmission://assignment/submission@revision/path</code>, the
+ * revision is optional and denotes the latest revision if omitted. Opening a
+ * submission requires the reviewer mode. The browsers of the submissions
+ * are kept until their communication instance is cleaned up, e.g., when the
+ * instances are cleared after changing the credentials. Until then, a
+ * submission without revision stays at the revision of its first access.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+public class SubmissionFileSystem extends FileSystem {
+
+    /**
+     * Stores the URI scheme of this file system.
+     *
+     * @since 2.4
+     */
+    public static final String SCHEME = "svnsubmission";
+
+    /**
+     * Stores the browsers opened so far by assignment and submission.
+     *
+     * @since 2.4
+     */
+    private Map<String, ISubmissionBrowser> browsers = new HashMap<String, ISubmissionBrowser>();
+
+    @Override
+    public IFileStore getStore(URI uri) {
+        return new SubmissionFileStore(this, uri);
+    }
+
+    @Override
+    public boolean isCaseSensitive() {
+        return true;
+    }
+
+    /**
+     * Returns the browser of a submission, opened on first access.
+     *
+     * @param assignment the name of the assignment
+     * @param submission the name of the submission, optionally followed by
+     *        <code>@revision</code>
+     * @return the browser
+     * @throws CoreException if the assignment or the submission does not
+     *         exist or in the case of communication errors
+     *
+     * @since 2.4
+     */
+    synchronized ISubmissionBrowser getBrowser(String assignment, String submission) throws CoreException {
+        String key = assignment + "/" + submission;
+        ISubmissionBrowser result = browsers.get(key);
+        if (null == result || result.isClosed()) {
+            String name = submission;
+            long revision = -1;
+            int pos = submission.lastIndexOf('@');
+            try {
+                if (pos >= 0) {
+                    name = submission.substring(0, pos);
+                    revision = Long.parseLong(submission.substring(pos + 1));
+                }
+                result = open(assignment, name, revision);
+            } catch (NumberFormatException e) {
+                throw createException("Invalid revision: " + submission, e);
+            } catch (CommunicationException e) {
+                throw createException(e.getMessage(), e);
+            }
+            browsers.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Opens a browser via the communication instance providing the
+     * assignment for review.
+     *
+     * @param assignment the name of the assignment
+     * @param submission the name of the submission
+     * @param revision the revision, negative for the latest revision
+     * @return the browser
+     * @throws CommunicationException if the assignment or the submission
+     *         does not exist or in the case of communication errors
+     *
+     * @since 2.4
+     */
+    private static ISubmissionBrowser open(String assignment, String submission, long revision)
+        throws CommunicationException {
+        ISubmissionBrowser result = null;
+        for (SubmissionCommunication comm : SubmissionCommunication.getInstances(IConfiguration.INSTANCE, null,
+            Activator.inReviewerMode(), null)) {
+            for (Assignment candidate : comm.getSubmissionsForReview()) {
+                if (null == result && candidate.getName().equals(assignment)) {
+                    result = comm.browse(candidate, submission, revision);
+                }
+            }
+        }
+        if (null == result) {
+            throw new CommunicationException(new CommunicationException.DetailedMessage(
+                CommunicationException.SubmissionPublicMessage.
+                COULD_NOT_FIND_REQUESTED_DATA_ON_STUDENT_MANAGEMENT_SERVER, "Assignment: " + assignment),
+                new Throwable());
+        }
+        return result;
+    }
+
+    /**
+     * Creates an exception for this plugin.
+     *
+     * @param message the message
+     * @param cause the cause
+     * @return the exception
+     *
+     * @since 2.4
+     */
+    static CoreException createException(String message, Throwable cause) {
+        return new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, message, cause));
+    }
+
+}
@@ -0,0 +1,231 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceDescription;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.osgi.service.prefs.BackingStoreException;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.Activator;
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.PreferenceConstants;
+
+/**
+ * Coalesces the builds caused by operations writing many files into the
+ * workspace, e.g., replays. While at least one operation is running (see
+ * {@link #suspend()}), auto-building is switched off. When the last
+ * operation finishes (see {@link #resume(Collection)}), the projects affected
+ * by all operations are built incrementally once and auto-building is
+ * restored afterwards. Nothing is built if auto-building was not enabled
+ * before. As the auto-building state is persisted by the workspace, a
+ * pending restore is recorded in the preferences of the plug-in and applied
+ * by {@link #recover()} on the next start if Eclipse terminated while
+ * auto-building was switched off.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+public class BuildCoalescer {
+
+    /**
+     * Stores the number of running operations (including a running
+     * coalesced build).
+     *
+     * @since 2.4
+     */
+    private static int suspended;
+
+    /**
+     * Stores whether auto-building was enabled before the first operation.
+     *
+     * @since 2.4
+     */
+    private static boolean restoreAutoBuilding;
+
+    /**
+     * Stores the projects affected by the running operations.
+     *
+     * @since 2.4
+     */
+    private static Set<IProject> affected = new LinkedHashSet<IProject>();
+
+    /**
+     * Prevents this utility class from being instantiated.
+     *
+     * @since 2.4
+     */
+    private BuildCoalescer() {
+    }
+
+    /**
+     * Announces the start of an operation writing into the workspace. Each
+     * call must be followed by a call of {@link #resume(Collection)}.
+     *
+     * @since 2.4
+     */
+    public static synchronized void suspend() {
+        if (0 == suspended) {
+            restoreAutoBuilding = ResourcesPlugin.getWorkspace().isAutoBuilding();
+            if (restoreAutoBuilding) {
+                // record before switching off, i.e., a crash in between does not lose the restore
+                setPendingRestore(true);
+                setAutoBuilding(false);
+            }
+        }
+        suspended++;
+    }
+
+    /**
+     * Restores auto-building if Eclipse terminated while it was switched
+     * off by a previous session. To be called when the plug-in starts.
+     *
+     * @since 2.4
+     */
+    public static synchronized void recover() {
+        if (0 == suspended && getPreferences().getBoolean(PreferenceConstants.AUTO_BUILD_SUSPENDED, false)) {
+            Activator.log(IStatus.INFO, "ExerciseSubmitter: restoring auto-building switched off while replaying",
+                null);
+            setAutoBuilding(true);
+            setPendingRestore(false);
+        }
+    }
+
+    /**
+     * Announces the end of an operation writing into the workspace. If this
+     * is the last running operation, the affected projects of all operations
+     * are built incrementally in a background job.
+     *
+     * @param projects the projects affected by the operation, may be
+     *        <b>null</b>
+     *
+     * @since 2.4
+     */
+    public static void resume(Collection<IProject> projects) {
+        Set<IProject> toBuild = null;
+        synchronized (BuildCoalescer.class) {
+            if (null != projects) {
+                affected.addAll(projects);
+            }
+            if (1 == suspended && restoreAutoBuilding && !affected.isEmpty()) {
+                // stay suspended until the coalesced build is done
+                toBuild = new LinkedHashSet<IProject>(affected);
+                affected.clear();
+            } else if (suspended > 0) {
+                suspended--;
+                if (0 == suspended) {
+                    affected.clear();
+                    if (restoreAutoBuilding) {
+                        setAutoBuilding(true);
+                        setPendingRestore(false);
+                    }
+                }
+            }
+        }
+        if (null != toBuild) {
+            scheduleBuild(toBuild);
+        }
+    }
+
+    /**
+     * Schedules the incremental build of the given projects. Auto-building is
+     * restored when the build is done.
+     *
+     * @param projects the projects to build
+     *
+     * @since 2.4
+     */
+    private static void scheduleBuild(final Set<IProject> projects) {
+        Job job = new Job("Building replayed projects") {
+
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                IStatus status = Status.OK_STATUS;
+                SubMonitor progress = SubMonitor.convert(monitor, projects.size());
+                try {
+                    for (IProject project : projects) {
+                        if (project.isAccessible()) {
+                            project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, progress.split(1));
+                        } else {
+                            progress.worked(1);
+                        }
+                    }
+                } catch (CoreException e) {
+                    status = e.getStatus();
+                } finally {
+                    resume(null);
+                }
+                return status;
+            }
+        };
+        job.setRule(ResourcesPlugin.getWorkspace().getRuleFactory().buildRule());
+        job.schedule();
+    }
+
+    /**
+     * Changes the auto-building state of the workspace.
+     *
+     * @param autoBuilding the new state
+     *
+     * @since 2.4
+     */
+    private static void setAutoBuilding(boolean autoBuilding) {
+        IWorkspace workspace = ResourcesPlugin.getWorkspace();
+        IWorkspaceDescription description = workspace.getDescription();
+        if (description.isAutoBuilding() != autoBuilding) {
+            description.setAutoBuilding(autoBuilding);
+            try {
+                workspace.setDescription(description);
+            } catch (CoreException e) {
+                Activator.log("ExerciseSubmitter: cannot change auto-building", e);
+            }
+        }
+    }
+
+    /**
+     * Records in the preferences of the plug-in whether auto-building must
+     * be restored. The preferences are flushed immediately so that the
+     * record survives a crash.
+     *
+     * @param pending <code>true</code> if auto-building is switched off
+     *        and must be restored, <code>false</code> else
+     *
+     * @since 2.4
+     */
+    private static void setPendingRestore(boolean pending) {
+        IEclipsePreferences preferences = getPreferences();
+        if (pending) {
+            preferences.putBoolean(PreferenceConstants.AUTO_BUILD_SUSPENDED, true);
+        } else {
+            preferences.remove(PreferenceConstants.AUTO_BUILD_SUSPENDED);
+        }
+        try {
+            preferences.flush();
+        } catch (BackingStoreException e) {
+            Activator.log("ExerciseSubmitter: cannot record the auto-building state", e);
+        }
+    }
+
+    /**
+     * Returns the preferences of the plug-in in the workspace.
+     *
+     * @return the preferences
+     *
+     * @since 2.4
+     */
+    private static IEclipsePreferences getPreferences() {
+        return InstanceScope.INSTANCE.getNode(Activator.PLUGIN_ID);
+    }
+
+}
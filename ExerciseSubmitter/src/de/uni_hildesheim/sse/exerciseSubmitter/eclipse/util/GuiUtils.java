@@ -1,12 +1,19 @@
 package de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
@@ -33,6 +40,7 @@ import de.uni_hildesheim.sse.exerciseSubmitter.submission.IPathFactory;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.ISubmission;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.IVersionedSubmission;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.ProgressListener;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.ReplayOptions;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.Submission;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.
     SubmissionCommunication;
@@ -379,7 +387,9 @@ public class GuiUtils {
     
     /**
      * Replays all submissions of the the specified <code>task</code> 
-     * from the repository to <code>path</code>.
+     * from the repository to <code>path</code>. Afterwards, the replayed
+     * directories are imported in bulk into the workspace (see 
+     * {@link ProjectImporter}).
      * 
      * @param name the name to be displayed in the progress window
      * @param comm the submission communication object
@@ -420,14 +430,100 @@ public class GuiUtils {
 
                 ExecutableMonitorListener<ISubmission> listener = 
                     new ExecutableMonitorListener<ISubmission>(name, monitor);
+                final IPathFactory pathFactory = null == factory ? comm : factory;
+                final List<File> replayed = Collections.synchronizedList(new ArrayList<File>());
+                IPathFactory recorder = new IPathFactory() {
+                    
+                    @Override
+                    public File createPath(File parent, String subdirectory) {
+                        File result = pathFactory.createPath(parent, subdirectory);
+                        replayed.add(result);
+                        return result;
+                    }
+                };
+                // build the imported projects once after the replay, not while replaying
+                List<IProject> imported = Collections.emptyList();
+                BuildCoalescer.suspend();
                 try {
-                    comm.replayEntireTask(path, assignment, listener, factory);
-                } catch (CommunicationException e) {
+                    try {
+                        comm.replayEntireTask(path, assignment, listener, recorder,
+                            ReplayOptions.fromConfiguration());
+                    } catch (CommunicationException e) {
+                        exception = e;
+                    }
+                    if (null == exception) {
+                        exception = listener.getException();
+                    }
+                    imported = ProjectImporter.importProjects(replayed, monitor);
+                } catch (CoreException e) {
+                    if (null == exception) {
+                        exception = e;
+                    }
+                } finally {
+                    BuildCoalescer.resume(imported);
+                }
+            }
+        }
+
+        RunnableWithProgress runnable = new RunnableWithProgress();
+        runRunnable(runnable, schedulingRule);
+        if (null != runnable.getException()) {
+            GuiUtils.handleThrowable(runnable.getException());
+        }
+    }
+    
+
+    /**
+     * Replays all submissions of the the specified <code>task</code> 
+     * from the repository into the ZIP archive <code>archive</code>, e.g., 
+     * for offline tools. The submissions are streamed into the archive,
+     * i.e., no directories are created and nothing is imported into the
+     * workspace. An incomplete archive is deleted.
+     * 
+     * @param name the name to be displayed in the progress window
+     * @param comm the submission communication object
+     * @param archive the archive file to be created
+     * @param assignment the task/exercise to be replayed
+     * @param schedulingRule the scheduling rule/resource to be locked
+     *        while execution, may be <b>null</b>
+     * 
+     * @since 2.4
+     */
+    public static void runEntireArchive(final String name, final SubmissionCommunication comm, final File archive,
+        final Assignment assignment, ISchedulingRule schedulingRule) {
+
+        /**
+         * Implements a <i>long-running operation</i> to <b>archive all submissions</b> action with a progress bar.
+         *
+         */
+        class RunnableWithProgress implements IRunnableWithProgress {
+
+            private Exception exception;
+
+            /**
+             * Returns the received exception.
+             * 
+             * @return the received exception, may be <b>null</b>
+             */
+            public Exception getException() {
+                return exception;
+            }
+
+            @Override
+            public void run(IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
+                ExecutableMonitorListener<ISubmission> listener = 
+                    new ExecutableMonitorListener<ISubmission>(name, monitor);
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(archive))) {
+                    comm.replayEntireTask(out, assignment, listener, ReplayOptions.fromConfiguration());
+                } catch (CommunicationException | IOException e) {
                     exception = e;
                 }
                 if (null == exception) {
                     exception = listener.getException();
                 }
+                if (null != exception) {
+                    archive.delete();
+                }
             }
         }
 
@@ -438,7 +534,6 @@ public class GuiUtils {
         }
     }
     
-    
     /**
      * Changes if submission success should be displayed.
      * 
@@ -1134,8 +1229,15 @@ public class GuiUtils {
                     
                         @Override
                         public String getText(Object element) {
-                            IVersionedSubmission submission = (IVersionedSubmission) element;
-                            return submission.getDate() + " - " + submission.getAuthor();
+                            String text;
+                            if (element instanceof IVersionedSubmission) {
+                                IVersionedSubmission submission = (IVersionedSubmission) element;
+                                text = submission.getDate() + " - " + submission.getAuthor();
+                            } else {
+                                // e.g., an entry requesting further versions
+                                text = String.valueOf(element);
+                            }
+                            return text;
                         }
                     });
                 } else {
@@ -0,0 +1,128 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.IFileBuffer;
+import org.eclipse.core.filebuffers.IFileBufferListener;
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.Activator;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.CommonStuff;
+
+/**
+ * Protects replayed files sharing their contents via hard links (see
+ * <code>cache.hardlinks</code>) from being modified in place by editors.
+ * Before a file buffer is validated for editing or committed, a shared file
+ * is replaced by a private copy (copy on write), i.e., editing the
+ * submission of one student does not affect the submissions of other
+ * students or the local store. Writes bypassing the file buffers, e.g., by
+ * builders, refactorings or external editors, are not guarded, i.e., hard
+ * linked replays must be treated as read-only apart from editing them in
+ * Eclipse editors.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+public class HardLinkGuard implements IFileBufferListener {
+
+    /**
+     * Stores the installed instance, <b>null</b> if not installed.
+     *
+     * @since 2.4
+     */
+    private static HardLinkGuard instance;
+
+    /**
+     * Prevents this class from being instantiated from outside.
+     *
+     * @since 2.4
+     */
+    private HardLinkGuard() {
+    }
+
+    /**
+     * Installs the guard for all text file buffers.
+     *
+     * @since 2.4
+     */
+    public static synchronized void install() {
+        if (null == instance) {
+            instance = new HardLinkGuard();
+            FileBuffers.getTextFileBufferManager().addFileBufferListener(instance);
+        }
+    }
+
+    /**
+     * Uninstalls the guard.
+     *
+     * @since 2.4
+     */
+    public static synchronized void uninstall() {
+        if (null != instance) {
+            FileBuffers.getTextFileBufferManager().removeFileBufferListener(instance);
+            instance = null;
+        }
+    }
+
+    /**
+     * Called before the state of a buffer changes, in particular before the
+     * buffer is validated for editing and before it is committed to its
+     * file. Breaks a hard link of the underlying file.
+     *
+     * @param buffer the affected buffer
+     *
+     * @since 2.4
+     */
+    @Override
+    public void stateChanging(IFileBuffer buffer) {
+        try {
+            File file = buffer.getFileStore().toLocalFile(EFS.NONE, null);
+            if (null != file) {
+                CommonStuff.breakHardLink(file);
+            }
+        } catch (CoreException | IOException e) {
+            Activator.log("ExerciseSubmitter: cannot copy shared file " + buffer.getLocation(), e);
+        }
+    }
+
+    @Override
+    public void bufferCreated(IFileBuffer buffer) {
+    }
+
+    @Override
+    public void bufferDisposed(IFileBuffer buffer) {
+    }
+
+    @Override
+    public void bufferContentAboutToBeReplaced(IFileBuffer buffer) {
+    }
+
+    @Override
+    public void bufferContentReplaced(IFileBuffer buffer) {
+    }
+
+    @Override
+    public void dirtyStateChanged(IFileBuffer buffer, boolean isDirty) {
+    }
+
+    @Override
+    public void stateValidationChanged(IFileBuffer buffer, boolean isStateValidated) {
+    }
+
+    @Override
+    public void underlyingFileMoved(IFileBuffer buffer, IPath path) {
+    }
+
+    @Override
+    public void underlyingFileDeleted(IFileBuffer buffer) {
+    }
+
+    @Override
+    public void stateChangeFailed(IFileBuffer buffer) {
+    }
+
+}
@@ -1,9 +1,21 @@
 package de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.jdt.core.IJavaProject;
@@ -16,7 +28,7 @@ import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.actions.MessageListener;
  * 
  * @author Holger Eichelberger
  * @since 2.00
- * @version 2.00
+ * @version 2.4
  */
 public abstract class ISubmissionProject implements ISchedulingRule {
 
@@ -153,6 +165,84 @@ public abstract class ISubmissionProject implements ISchedulingRule {
      * @since 2.00
      */
     public abstract void refreshTopLevel();
+
+    /**
+     * Refreshes, i.e. synchronizes the given paths of this project with the 
+     * file system. Paths sharing the same parent folder are refreshed by 
+     * refreshing the parent folder once. All refreshes happen in one 
+     * workspace operation, i.e., cause only one resource delta.
+     * 
+     * @param paths the created, changed or deleted paths relative to this
+     *        project (separated by <code>/</code>), <b>null</b> to refresh 
+     *        the entire project
+     * 
+     * @since 2.4
+     */
+    public void refresh(Collection<String> paths) {
+        if (null == paths) {
+            refresh();
+        } else if (!paths.isEmpty()) {
+            final IProject project = getProject();
+            // parents sorted by length, i.e., new parent folders are known before refreshing their contents
+            final Map<String, List<String>> groups = new TreeMap<String, List<String>>(
+                (p1, p2) -> p1.length() != p2.length() ? p1.length() - p2.length() : p1.compareTo(p2));
+            for (String path : paths) {
+                int pos = path.lastIndexOf('/');
+                String parent = pos < 0 ? "" : path.substring(0, pos);
+                groups.computeIfAbsent(parent, p -> new ArrayList<String>()).add(path);
+            }
+            IWorkspaceRunnable runnable = new IWorkspaceRunnable() {
+
+                @Override
+                public void run(IProgressMonitor monitor) throws CoreException {
+                    for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+                        refresh(project, group.getKey(), group.getValue());
+                    }
+                }
+            };
+            try {
+                ResourcesPlugin.getWorkspace().run(runnable, project, IWorkspace.AVOID_UPDATE, null);
+            } catch (CoreException e) {
+                refresh();
+            }
+        }
+    }
+
+    /**
+     * Refreshes the given paths in <code>parent</code>. A single existing
+     * resource is refreshed on its own, otherwise <code>parent</code> is 
+     * refreshed. If <code>parent</code> is not (yet) known to the workspace,
+     * its nearest known ancestor is refreshed entirely.
+     * 
+     * @param project the project to refresh
+     * @param parent the parent folder relative to <code>project</code>
+     * @param paths the paths in <code>parent</code> relative to 
+     *        <code>project</code>
+     * @throws CoreException in case that refreshing fails
+     * 
+     * @since 2.4
+     */
+    private static void refresh(IProject project, String parent, List<String> paths) throws CoreException {
+        IResource member = 1 == paths.size() ? project.findMember(paths.get(0)) : null;
+        if (null != member) {
+            member.refreshLocal(IResource.DEPTH_ZERO, null);
+        } else {
+            IResource container = project;
+            int depth = IResource.DEPTH_ONE;
+            if (parent.length() > 0) {
+                IPath path = new Path(parent);
+                container = project.findMember(path);
+                while (null == container && path.segmentCount() > 0) {
+                    path = path.removeLastSegments(1);
+                    container = path.segmentCount() > 0 ? project.findMember(path) : project;
+                    depth = IResource.DEPTH_INFINITE;
+                }
+            }
+            if (null != container) {
+                container.refreshLocal(depth, null);
+            }
+        }
+    }
     
     /**
      * Returns a wrapping project instance for Eclipse Java projects.
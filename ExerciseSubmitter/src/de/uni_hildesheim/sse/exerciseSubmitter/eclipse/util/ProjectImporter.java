@@ -0,0 +1,119 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Imports replayed project directories into the workspace in bulk. All
+ * projects are created and opened within one workspace operation, i.e.,
+ * the workspace is notified by a single resource delta and (auto) builds
+ * are deferred until all projects are available.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+public class ProjectImporter {
+
+    /**
+     * Prevents this utility class from being instantiated.
+     *
+     * @since 2.4
+     */
+    private ProjectImporter() {
+    }
+
+    /**
+     * Imports the given directories as projects into the workspace. Directories
+     * containing an Eclipse project file are imported with their project
+     * description, other directories become general projects named after the
+     * directory. Directories already imported are opened (if closed) and
+     * refreshed. Empty directories are skipped.
+     *
+     * @param directories the project directories to import
+     * @param monitor a progress monitor, may be <b>null</b>
+     * @return the imported projects
+     * @throws CoreException in case that creating or opening a project fails
+     *
+     * @since 2.4
+     */
+    public static List<IProject> importProjects(final Collection<File> directories, IProgressMonitor monitor)
+        throws CoreException {
+        final IWorkspace workspace = ResourcesPlugin.getWorkspace();
+        final List<IProject> result = new ArrayList<IProject>();
+        IWorkspaceRunnable runnable = new IWorkspaceRunnable() {
+
+            @Override
+            public void run(IProgressMonitor monitor) throws CoreException {
+                SubMonitor progress = SubMonitor.convert(monitor, "Importing projects", directories.size());
+                for (File dir : directories) {
+                    String[] contents = dir.list();
+                    // skip directories of failed replays
+                    if (null != contents && contents.length > 0) {
+                        result.add(importProject(workspace, dir, progress.split(1)));
+                    } else {
+                        progress.worked(1);
+                    }
+                }
+            }
+        };
+        workspace.run(runnable, workspace.getRoot(), IWorkspace.AVOID_UPDATE, monitor);
+        return result;
+    }
+
+    /**
+     * Imports a single directory as project.
+     *
+     * @param workspace the workspace to import into
+     * @param dir the project directory
+     * @param monitor a progress monitor
+     * @return the imported project
+     * @throws CoreException in case that creating or opening the project fails
+     *
+     * @since 2.4
+     */
+    private static IProject importProject(IWorkspace workspace, File dir, IProgressMonitor monitor)
+        throws CoreException {
+        IPath location = new Path(dir.getAbsolutePath());
+        File projectFile = new File(dir, IProjectDescription.DESCRIPTION_FILE_NAME);
+        IProjectDescription description;
+        if (projectFile.isFile()) {
+            description = workspace.loadProjectDescription(location.append(IProjectDescription.DESCRIPTION_FILE_NAME));
+        } else {
+            description = workspace.newProjectDescription(dir.getName());
+        }
+        IProject project = workspace.getRoot().getProject(description.getName());
+        // projects in the workspace directory must not declare an explicit location
+        if (location.equals(workspace.getRoot().getLocation().append(description.getName()))) {
+            description.setLocation(null);
+        } else {
+            description.setLocation(location);
+        }
+        SubMonitor progress = SubMonitor.convert(monitor, 2);
+        if (!project.exists()) {
+            project.create(description, progress.split(1));
+        } else {
+            progress.worked(1);
+        }
+        if (!project.isOpen()) {
+            project.open(IResource.BACKGROUND_REFRESH, progress.split(1));
+        } else {
+            project.refreshLocal(IResource.DEPTH_INFINITE, progress.split(1));
+        }
+        return project;
+    }
+
+}
@@ -5,13 +5,17 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 /**
  * Defines common utility methods.
  * 
  * @author Alexander Schmehl
  * @since 1.00
- * @version 2.00
+ * @version 2.4
  */
 public class CommonStuff {
 
@@ -188,4 +192,44 @@ public class CommonStuff {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Returns whether the number of hard links of a file can be determined,
+     * i.e., whether {@link #breakHardLink(File)} is able to protect shared
+     * files.
+     * 
+     * @return <code>true</code> if hard links can be detected,
+     *         <code>false</code> else
+     * 
+     * @since 2.4
+     */
+    public static boolean canDetectHardLinks() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+    }
+
+    /**
+     * Replaces a file sharing its contents with other files via hard links
+     * by a private copy, i.e., the file may be modified in place afterwards
+     * without affecting the other files. Files without further links are not
+     * touched.
+     * 
+     * @param file the file to be modified
+     * @throws IOException if the copy cannot be created
+     * 
+     * @since 2.4
+     */
+    public static void breakHardLink(File file) throws IOException {
+        Path path = file.toPath();
+        if (canDetectHardLinks() && Files.isRegularFile(path)
+            && ((Number) Files.getAttribute(path, "unix:nlink")).intValue() > 1) {
+            Path tmp = Files.createTempFile(path.getParent(), file.getName(), null);
+            try {
+                // keep the timestamp so that the workspace stays in sync
+                Files.copy(path, tmp, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+}
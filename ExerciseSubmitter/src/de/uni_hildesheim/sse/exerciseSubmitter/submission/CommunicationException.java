@@ -9,7 +9,7 @@ package de.uni_hildesheim.sse.exerciseSubmitter.submission;
  * @author Holger Eichelberger
  * @author El-Sharkawy
  * @since 2.00
- * @version 2.1
+ * @version 2.4
  */
 public class CommunicationException extends Exception {
 
@@ -233,7 +233,22 @@ public class CommunicationException extends Exception {
          * @since 2.1
          */
         COULD_NOT_FIND_REQUESTED_DATA_ON_STUDENT_MANAGEMENT_SERVER("Could not find requested data on "
-            + "student management server.");
+            + "student management server."),
+
+        /**
+         * Denotes that some submissions of an entire task could not be replayed.
+         * 
+         * @since 2.4
+         */
+        INCOMPLETE_REPLAY("Some submissions could not be replayed. Replaying the task again "
+            + "resumes with these submissions."),
+
+        /**
+         * Denotes an unexpected failure while contacting a submission server.
+         * 
+         * @since 2.4
+         */
+        SERVER_COMMUNICATION_FAILED("Communication with the submission server failed unexpectedly.");
 
         /**
          * Stores the message assigned to this message constant.
@@ -265,4 +280,43 @@ public class CommunicationException extends Exception {
         }
     }
 
+    /**
+     * Extends a public message by details, e.g., by the affected elements.
+     * 
+     * @since 2.4
+     * @version 2.4
+     */
+    public static class DetailedMessage implements PublicMessage {
+
+        /**
+         * Stores the complete message text.
+         * 
+         * @since 2.4
+         */
+        private String message;
+
+        /**
+         * Creates a new detailed message.
+         * 
+         * @param message the message to be extended
+         * @param details the details to be appended
+         * 
+         * @since 2.4
+         */
+        public DetailedMessage(PublicMessage message, String details) {
+            this.message = message.getMessage() + " " + details;
+        }
+
+        /**
+         * Returns the message text.
+         * 
+         * @return the message text including the details
+         * 
+         * @since 2.4
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
 }
@@ -2,6 +2,7 @@ package de.uni_hildesheim.sse.exerciseSubmitter.submission;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.Collection;
 
 /**
  * Defines the data of a directory to be submitted. (Initial intention
@@ -9,7 +10,7 @@ import java.io.Serializable;
  * 
  * @author Alexander Schmehl
  * @since 1.00
- * @version 2.00
+ * @version 2.4
  */
 public abstract interface ISubmission extends Serializable {
 
@@ -130,4 +131,27 @@ public abstract interface ISubmission extends Serializable {
      */
     public void setMessage(String message);
 
+    /**
+     * Sets the paths changed by the last replay operation on this instance.
+     * 
+     * @param changedPaths the created, changed or deleted paths relative to
+     *        {@link #getPath()} (separated by <code>/</code>), <b>null</b> if
+     *        unknown
+     * 
+     * @since 2.4
+     */
+    public void setChangedPaths(Collection<String> changedPaths);
+
+    /**
+     * Returns the paths changed by the last replay operation on this 
+     * instance.
+     * 
+     * @return the created, changed or deleted paths relative to 
+     *         {@link #getPath()} (separated by <code>/</code>), <b>null</b> 
+     *         if unknown, i.e., if the entire path may have changed
+     * 
+     * @since 2.4
+     */
+    public Collection<String> getChangedPaths();
+
 }
@@ -0,0 +1,72 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Provides read-only access to a single revision of a server-stored
+ * submission without replaying it. Directory listings and file contents are
+ * loaded lazily on first access and cached, i.e., browsing many submissions
+ * costs only the files actually viewed. Paths are relative to the
+ * submission directory and separated by <code>/</code>, the empty path
+ * denotes the submission directory itself. A browser holds a session to
+ * the server until it is {@link #close() closed}, at the latest when the
+ * communication instance it was created by is cleaned up.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+public interface ISubmissionBrowser {
+
+    /**
+     * Returns the browsed revision. A browser created for the latest revision
+     * stays at the revision which was the latest one on creation.
+     *
+     * @return the revision
+     *
+     * @since 2.4
+     */
+    public long getRevision();
+
+    /**
+     * Lists the contents of a directory.
+     *
+     * @param path the path of the directory
+     * @return the entries of the directory, the path of an entry is its name
+     * @throws CommunicationException if <code>path</code> does not denote a
+     *         directory or in the case of (communication) errors
+     *
+     * @since 2.4
+     */
+    public List<SubmissionDirEntry> list(String path) throws CommunicationException;
+
+    /**
+     * Opens the contents of a file.
+     *
+     * @param path the path of the file
+     * @return the contents of the file, to be closed by the caller
+     * @throws CommunicationException if <code>path</code> does not denote a
+     *         file or in the case of (communication) errors
+     *
+     * @since 2.4
+     */
+    public InputStream open(String path) throws CommunicationException;
+
+    /**
+     * Closes the session of this browser. A closed browser cannot be used
+     * anymore. Closing a closed browser has no effect.
+     *
+     * @since 2.4
+     */
+    public void close();
+
+    /**
+     * Returns whether this browser was closed.
+     *
+     * @return <code>true</code> if closed, <code>false</code> else
+     *
+     * @since 2.4
+     */
+    public boolean isClosed();
+
+}
@@ -6,7 +6,7 @@ package de.uni_hildesheim.sse.exerciseSubmitter.submission;
  * @author Holger Eichelberger
  * @author El-Sharkawy
  * @since 2.00
- * @version 2.1
+ * @version 2.4
  */
 public interface IVersionedSubmission {
 
@@ -28,4 +28,16 @@ public interface IVersionedSubmission {
      */
     public String getAuthor();
 
+    /**
+     * Returns the revision of the submission, e.g., to continue a paginated
+     * history (see {@link SubmissionCommunication#getSubmissionsForReplay(
+     * net.ssehub.exercisesubmitter.protocol.frontend.Assignment, long, int)}).
+     * 
+     * @return the revision, negative if the submission does not denote a
+     *     concrete revision
+     * 
+     * @since 2.4
+     */
+    public long getRevision();
+
 }
@@ -0,0 +1,422 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.Activator;
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
+import net.ssehub.exercisesubmitter.protocol.backend.ServerNotFoundException;
+import net.ssehub.exercisesubmitter.protocol.backend.UnknownCredentialsException;
+import net.ssehub.exercisesubmitter.protocol.frontend.SubmitterProtocol;
+
+/**
+ * Manages the login of the user at the student management system. All logins
+ * of the plug-in share the protocol instance and, thus, its authentication
+ * token. A login is only performed if the user, the password or the protocol
+ * changed or if the session expired, i.e., after <code>auth.validity</code>
+ * seconds. Concurrent logins of the same user share a single request to the
+ * authentication server. The token itself is kept by the protocol, which does
+ * not reveal its expiry; therefore, the validity is configured and should be
+ * shorter than the lifetime of the tokens issued by the authentication
+ * server. If the session was used, it is renewed in the background during
+ * the last tenth of its validity, i.e., user actions do not wait for the
+ * login while working continuously. Idle sessions just expire. Requests to
+ * the student management system are {@link #execute(SubmitterProtocol,
+ * Request) executed} within the session, i.e., an expired session is
+ * renewed before and a session rejected by the server is renewed once
+ * before repeating the request.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+public class LoginSession {
+
+    /**
+     * Stores the configuration key of the session validity in seconds.
+     *
+     * @since 2.4
+     */
+    public static final String CONFIG_VALIDITY = "auth.validity";
+
+    /**
+     * Stores the default session validity in seconds.
+     *
+     * @since 2.4
+     */
+    private static final long DEFAULT_VALIDITY = 30 * 60;
+
+    /**
+     * Stores the singleton instance.
+     *
+     * @since 2.4
+     */
+    private static final LoginSession INSTANCE = new LoginSession();
+
+    /**
+     * Stores the protocol of the current session.
+     *
+     * @since 2.4
+     */
+    private SubmitterProtocol protocol;
+
+    /**
+     * Stores the user of the current session.
+     *
+     * @since 2.4
+     */
+    private String userName;
+
+    /**
+     * Stores the password of the current session.
+     *
+     * @since 2.4
+     */
+    private String password;
+
+    /**
+     * Stores the login of the current session, <b>null</b> if there is no
+     * session.
+     *
+     * @since 2.4
+     */
+    private FutureTask<Boolean> login;
+
+    /**
+     * Stores the time the current session expires at, <code>0</code> while
+     * logging in or if the login failed.
+     *
+     * @since 2.4
+     */
+    private long expiry;
+
+    /**
+     * Stores whether the current session was reused since it was started.
+     *
+     * @since 2.4
+     */
+    private boolean used;
+
+    /**
+     * Stores the job renewing the current session, <b>null</b> if none is
+     * scheduled.
+     *
+     * @since 2.4
+     */
+    private Job renewal;
+
+    /**
+     * Prevents external creation.
+     *
+     * @since 2.4
+     */
+    private LoginSession() {
+    }
+
+    /**
+     * Returns the login session of this plug-in.
+     *
+     * @return the login session
+     *
+     * @since 2.4
+     */
+    public static LoginSession getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Logs in a user unless the user is already logged in on
+     * <code>protocol</code> and the session is still valid. If a login of
+     * the same user is in progress, this method waits for its result.
+     *
+     * @param protocol the protocol to log in with
+     * @param userName the name of the user
+     * @param password the password of <code>userName</code>
+     * @return the result of {@link SubmitterProtocol#login(String, String)}
+     * @throws UnknownCredentialsException if the credentials are not valid
+     * @throws ServerNotFoundException if the authentication server cannot be
+     *         reached
+     *
+     * @since 2.4
+     */
+    public boolean login(SubmitterProtocol protocol, String userName, String password)
+        throws UnknownCredentialsException, ServerNotFoundException {
+        FutureTask<Boolean> task;
+        boolean owner = false;
+        synchronized (this) {
+            boolean same = protocol == this.protocol && Objects.equals(userName, this.userName)
+                && Objects.equals(password, this.password);
+            if (null == login || !same || (login.isDone() && System.currentTimeMillis() >= expiry)) {
+                this.protocol = protocol;
+                this.userName = userName;
+                this.password = password;
+                this.expiry = 0;
+                login = new FutureTask<Boolean>(() -> doLogin(protocol, userName, password));
+                owner = true;
+            } else {
+                used = true;
+            }
+            task = login;
+        }
+        if (owner) {
+            task.run();
+        }
+        return await(task);
+    }
+
+    /**
+     * Performs a login and starts the session on success.
+     *
+     * @param protocol the protocol to log in with
+     * @param userName the name of the user
+     * @param password the password of <code>userName</code>
+     * @return the result of {@link SubmitterProtocol#login(String, String)}
+     * @throws UnknownCredentialsException if the credentials are not valid
+     * @throws ServerNotFoundException if the authentication server cannot be
+     *         reached
+     *
+     * @since 2.4
+     */
+    private Boolean doLogin(SubmitterProtocol protocol, String userName, String password)
+        throws UnknownCredentialsException, ServerNotFoundException {
+        boolean result = protocol.login(userName, password);
+        long validity;
+        try {
+            validity = Long.parseLong(IConfiguration.INSTANCE.getProperty(CONFIG_VALIDITY,
+                String.valueOf(DEFAULT_VALIDITY)).trim());
+        } catch (NumberFormatException e) {
+            validity = DEFAULT_VALIDITY;
+        }
+        synchronized (this) {
+            if (protocol == this.protocol && Objects.equals(userName, this.userName)
+                && Objects.equals(password, this.password)) {
+                expiry = System.currentTimeMillis() + validity * 1000;
+                used = false;
+                if (null != renewal) {
+                    renewal.cancel();
+                }
+                renewal = new RenewalJob(protocol, userName, password);
+                renewal.setSystem(true);
+                renewal.schedule(validity * 900);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Waits for a login and passes on its exceptions.
+     *
+     * @param task the login
+     * @return the result of the login
+     * @throws UnknownCredentialsException if the credentials are not valid
+     * @throws ServerNotFoundException if the authentication server cannot be
+     *         reached
+     *
+     * @since 2.4
+     */
+    private static boolean await(FutureTask<Boolean> task)
+        throws UnknownCredentialsException, ServerNotFoundException {
+        boolean result = false;
+        try {
+            result = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UnknownCredentialsException) {
+                throw (UnknownCredentialsException) cause;
+            } else if (cause instanceof ServerNotFoundException) {
+                throw (ServerNotFoundException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw (Error) cause;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Executes a request to the student management system within the
+     * current session. If the session of <code>protocol</code> expired, the
+     * user is logged in again before. If the server rejects the credentials
+     * of the session, e.g., as the token was revoked, the user is logged in
+     * again and the request is repeated once. Requests of protocols without
+     * a session are executed as they are.
+     *
+     * @param <T> the type of the result
+     * @param protocol the protocol executing the request
+     * @param request the request
+     * @return the result of the request
+     * @throws NetworkException if the request failed
+     *
+     * @since 2.4
+     */
+    public <T> T execute(SubmitterProtocol protocol, Request<T> request) throws NetworkException {
+        T result;
+        FutureTask<Boolean> session = renew(protocol, null);
+        if (null != session) {
+            try {
+                result = request.execute();
+            } catch (UnknownCredentialsException e) {
+                if (IConfiguration.INSTANCE.isDebuggingEnabled()) {
+                    Activator.log("Session rejected, logging in again", e);
+                }
+                renew(protocol, session);
+                result = request.execute();
+            }
+        } else {
+            result = request.execute();
+        }
+        return result;
+    }
+
+    /**
+     * Logs in again with the credentials of the current session if
+     * required.
+     *
+     * @param protocol the protocol to renew the session for
+     * @param rejected the login of the session rejected by the server,
+     *        <b>null</b> if the session shall only be renewed if expired. If
+     *        the session was renewed since <code>rejected</code>, the
+     *        renewed session is used.
+     * @return the login of the session of <code>protocol</code>,
+     *         <b>null</b> if <code>protocol</code> has no session
+     * @throws NetworkException if logging in failed
+     *
+     * @since 2.4
+     */
+    private FutureTask<Boolean> renew(SubmitterProtocol protocol, FutureTask<Boolean> rejected)
+        throws NetworkException {
+        String user;
+        String pw;
+        synchronized (this) {
+            boolean current = protocol == this.protocol && null != userName;
+            user = current ? userName : null;
+            pw = password;
+            if (current && null != rejected && rejected == login) {
+                invalidate();
+            }
+        }
+        FutureTask<Boolean> result = null;
+        if (null != user) {
+            login(protocol, user, pw);
+            synchronized (this) {
+                result = login;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ends the current session, e.g., as the server rejected the token. The
+     * next login contacts the authentication server again.
+     *
+     * @since 2.4
+     */
+    public synchronized void invalidate() {
+        expiry = 0;
+        login = null;
+        if (null != renewal) {
+            renewal.cancel();
+            renewal = null;
+        }
+    }
+
+    /**
+     * Renews a session if it is still the current one and was used since it
+     * was started. The session remains valid while renewing, i.e., logins
+     * neither wait for nor repeat the renewal. If the renewal fails, the
+     * session expires as usual.
+     *
+     * @since 2.4
+     * @version 2.4
+     */
+    private class RenewalJob extends Job {
+
+        /**
+         * Stores the protocol of the session.
+         *
+         * @since 2.4
+         */
+        private SubmitterProtocol protocol;
+
+        /**
+         * Stores the user of the session.
+         *
+         * @since 2.4
+         */
+        private String userName;
+
+        /**
+         * Stores the password of the session.
+         *
+         * @since 2.4
+         */
+        private String password;
+
+        /**
+         * Creates the renewal of a session.
+         *
+         * @param protocol the protocol of the session
+         * @param userName the user of the session
+         * @param password the password of the session
+         *
+         * @since 2.4
+         */
+        private RenewalJob(SubmitterProtocol protocol, String userName, String password) {
+            super("Renewing login");
+            this.protocol = protocol;
+            this.userName = userName;
+            this.password = password;
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            boolean renew;
+            synchronized (LoginSession.this) {
+                renew = this == renewal && used;
+            }
+            if (renew && !monitor.isCanceled()) {
+                try {
+                    doLogin(protocol, userName, password);
+                } catch (NetworkException e) {
+                    if (IConfiguration.INSTANCE.isDebuggingEnabled()) {
+                        Activator.log("Renewing the login failed", e);
+                    }
+                }
+            }
+            return Status.OK_STATUS;
+        }
+
+    }
+
+    /**
+     * A request to the student management system.
+     *
+     * @param <T> the type of the result
+     *
+     * @since 2.4
+     * @version 2.4
+     */
+    public interface Request<T> {
+
+        /**
+         * Executes the request.
+         *
+         * @return the result
+         * @throws NetworkException if the request failed
+         *
+         * @since 2.4
+         */
+        public T execute() throws NetworkException;
+
+    }
+
+}
@@ -0,0 +1,59 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission;
+
+/**
+ * Merges the progress of servers contacted concurrently into a single
+ * listener. Notifications are passed on one at a time and the steps are
+ * renumbered in the order they are executed, i.e., the progress of the
+ * underlying listener increases monotonically.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class MergingInstanceListener implements CommunicationInstanceListener {
+
+    /**
+     * Stores the underlying listener.
+     *
+     * @since 2.4
+     */
+    private CommunicationInstanceListener listener;
+
+    /**
+     * Stores the number of the last step passed on.
+     *
+     * @since 2.4
+     */
+    private int step;
+
+    /**
+     * Creates a new merging listener.
+     *
+     * @param listener the underlying listener
+     *
+     * @since 2.4
+     */
+    MergingInstanceListener(CommunicationInstanceListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public synchronized void notifyNumberOfServers(int number) {
+        listener.notifyNumberOfServers(number);
+    }
+
+    @Override
+    public synchronized void doStep(String text, int number) {
+        listener.doStep(text, ++step);
+    }
+
+    @Override
+    public synchronized void notifyContactingFinished(boolean error) {
+        listener.notifyContactingFinished(error);
+    }
+
+    @Override
+    public synchronized void notifyContactingStarted() {
+        listener.notifyContactingStarted();
+    }
+
+}
@@ -0,0 +1,71 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission;
+
+/**
+ * Hands over the communication instance of a server contacted in the
+ * background. If the server is skipped before its instance is created, e.g.,
+ * due to its timeout, the late instance is cleaned up instead of being
+ * published, as SVN and HTTP calls do not necessarily stop when their thread
+ * is interrupted.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class PendingInstance {
+
+    /**
+     * Stores the published instance, <b>null</b> if none was published so
+     * far or if it was handed over.
+     *
+     * @since 2.4
+     */
+    private SubmissionCommunication instance;
+
+    /**
+     * Stores whether the server was skipped.
+     *
+     * @since 2.4
+     */
+    private boolean abandoned;
+
+    /**
+     * Publishes the instance created for the server. If the server was
+     * skipped meanwhile, <code>comm</code> is cleaned up.
+     *
+     * @param comm the created instance
+     * @return <code>comm</code>, <b>null</b> if the server was skipped
+     *
+     * @since 2.4
+     */
+    SubmissionCommunication publish(SubmissionCommunication comm) {
+        boolean late;
+        synchronized (this) {
+            late = abandoned;
+            if (!late) {
+                instance = comm;
+            }
+        }
+        if (late) {
+            comm.cleanup();
+        }
+        return late ? null : comm;
+    }
+
+    /**
+     * Skips the server. An instance published but not handed over is
+     * cleaned up, later instances are cleaned up when being published.
+     *
+     * @since 2.4
+     */
+    void abandon() {
+        SubmissionCommunication comm;
+        synchronized (this) {
+            abandoned = true;
+            comm = instance;
+            instance = null;
+        }
+        if (null != comm) {
+            comm.cleanup();
+        }
+    }
+
+}
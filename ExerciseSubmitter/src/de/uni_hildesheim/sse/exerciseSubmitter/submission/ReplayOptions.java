@@ -0,0 +1,320 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+
+/**
+ * Restricts a replay to parts of a submission, e.g., to the sources for a
+ * quick review. Paths are relative to the submission root and separated by
+ * <code>/</code>. Filter patterns may contain <code>*</code> (any characters
+ * within a path segment), <code>?</code> (one character within a path
+ * segment) and <code>**</code> (any number of path segments). A pattern
+ * matching a directory also matches all elements below this directory.
+ * An element is replayed if it matches at least one include pattern (or if
+ * there are no include patterns), no exclude pattern and does not exceed
+ * the depth. Instances are immutable.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+public class ReplayOptions {
+
+    /**
+     * Denotes an unlimited depth.
+     *
+     * @since 2.4
+     */
+    public static final int UNLIMITED = -1;
+
+    /**
+     * Replays entire submissions.
+     *
+     * @since 2.4
+     */
+    public static final ReplayOptions ALL = new ReplayOptions(null, null, UNLIMITED);
+
+    /**
+     * Stores the configuration key of the include patterns (separated by
+     * commas) for reviewer replays.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_INCLUDE = "replay.include";
+
+    /**
+     * Stores the configuration key of the exclude patterns (separated by
+     * commas) for reviewer replays.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_EXCLUDE = "replay.exclude";
+
+    /**
+     * Stores the configuration key of the depth for reviewer replays.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_DEPTH = "replay.depth";
+
+    /**
+     * Stores the include patterns as given.
+     *
+     * @since 2.4
+     */
+    private List<String> includes;
+
+    /**
+     * Stores the exclude patterns as given.
+     *
+     * @since 2.4
+     */
+    private List<String> excludes;
+
+    /**
+     * Stores the compiled include patterns.
+     *
+     * @since 2.4
+     */
+    private List<Pattern> includePatterns;
+
+    /**
+     * Stores the compiled exclude patterns.
+     *
+     * @since 2.4
+     */
+    private List<Pattern> excludePatterns;
+
+    /**
+     * Stores the maximum number of path segments of replayed elements.
+     *
+     * @since 2.4
+     */
+    private int depth;
+
+    /**
+     * Creates new replay options.
+     *
+     * @param includes the include patterns, all elements are included if
+     *        <b>null</b> or empty
+     * @param excludes the exclude patterns, may be <b>null</b>
+     * @param depth the maximum number of path segments of replayed elements,
+     *        e.g., <code>1</code> for the top-level elements only (directories
+     *        are replayed empty), {@link #UNLIMITED} for no limit
+     *
+     * @since 2.4
+     */
+    public ReplayOptions(Collection<String> includes, Collection<String> excludes, int depth) {
+        this.includes = normalize(includes);
+        this.excludes = normalize(excludes);
+        this.includePatterns = compile(this.includes);
+        this.excludePatterns = compile(this.excludes);
+        this.depth = depth < 0 ? UNLIMITED : depth;
+    }
+
+    /**
+     * Creates replay options from the reviewer settings of the
+     * configuration.
+     *
+     * @return the replay options, {@link #ALL} if nothing is configured
+     *
+     * @since 2.4
+     */
+    public static ReplayOptions fromConfiguration() {
+        List<String> includes = split(IConfiguration.INSTANCE.getProperty(CONFIG_INCLUDE, ""));
+        List<String> excludes = split(IConfiguration.INSTANCE.getProperty(CONFIG_EXCLUDE, ""));
+        int depth;
+        try {
+            depth = Integer.parseInt(IConfiguration.INSTANCE.getProperty(CONFIG_DEPTH,
+                String.valueOf(UNLIMITED)).trim());
+        } catch (NumberFormatException e) {
+            depth = UNLIMITED;
+        }
+        ReplayOptions result = new ReplayOptions(includes, excludes, depth);
+        if (!result.isFiltering()) {
+            result = ALL;
+        }
+        return result;
+    }
+
+    /**
+     * Splits a comma separated list of patterns.
+     *
+     * @param patterns the patterns
+     * @return the individual patterns
+     *
+     * @since 2.4
+     */
+    private static List<String> split(String patterns) {
+        List<String> result = new ArrayList<String>();
+        for (String pattern : patterns.split(",")) {
+            result.add(pattern);
+        }
+        return result;
+    }
+
+    /**
+     * Normalizes the given patterns, i.e., trims them, removes leading and
+     * trailing separators and omits empty patterns.
+     *
+     * @param patterns the patterns, may be <b>null</b>
+     * @return the normalized patterns
+     *
+     * @since 2.4
+     */
+    private static List<String> normalize(Collection<String> patterns) {
+        List<String> result = new ArrayList<String>();
+        if (null != patterns) {
+            for (String pattern : patterns) {
+                String tmp = pattern.trim().replace('\\', '/');
+                while (tmp.startsWith("/")) {
+                    tmp = tmp.substring(1);
+                }
+                while (tmp.endsWith("/")) {
+                    tmp = tmp.substring(0, tmp.length() - 1);
+                }
+                if (tmp.length() > 0) {
+                    result.add(tmp);
+                }
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Compiles the given patterns into regular expressions.
+     *
+     * @param patterns the (normalized) patterns
+     * @return the regular expressions
+     *
+     * @since 2.4
+     */
+    private static List<Pattern> compile(List<String> patterns) {
+        List<Pattern> result = new ArrayList<Pattern>();
+        for (String pattern : patterns) {
+            StringBuilder regEx = new StringBuilder();
+            int pos = 0;
+            while (pos < pattern.length()) {
+                char ch = pattern.charAt(pos);
+                if (pattern.startsWith("**/", pos)) {
+                    regEx.append("(.*/)?");
+                    pos += 3;
+                } else if (pattern.startsWith("**", pos)) {
+                    regEx.append(".*");
+                    pos += 2;
+                } else {
+                    if ('*' == ch) {
+                        regEx.append("[^/]*");
+                    } else if ('?' == ch) {
+                        regEx.append("[^/]");
+                    } else {
+                        regEx.append(Pattern.quote(String.valueOf(ch)));
+                    }
+                    pos++;
+                }
+            }
+            // a matching directory includes all nested elements
+            regEx.append("(/.*)?");
+            result.add(Pattern.compile(regEx.toString()));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the include patterns.
+     *
+     * @return the include patterns, empty if all elements are included
+     *
+     * @since 2.4
+     */
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    /**
+     * Returns the exclude patterns.
+     *
+     * @return the exclude patterns
+     *
+     * @since 2.4
+     */
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * Returns the maximum number of path segments of replayed elements.
+     *
+     * @return the depth or {@link #UNLIMITED}
+     *
+     * @since 2.4
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns whether these options restrict a replay at all.
+     *
+     * @return <code>true</code> if only parts of a submission are replayed,
+     *         <code>false</code> if entire submissions are replayed
+     *
+     * @since 2.4
+     */
+    public boolean isFiltering() {
+        return !includes.isEmpty() || !excludes.isEmpty() || UNLIMITED != depth;
+    }
+
+    /**
+     * Returns whether an element shall be replayed. A directory is accepted
+     * if it may contain accepted elements, i.e., directories on the way to
+     * included elements are replayed.
+     *
+     * @param path the path of the element relative to the submission root
+     * @param directory <code>true</code> if <code>path</code> denotes a
+     *        directory, <code>false</code> if it denotes a file
+     * @return <code>true</code> if the element shall be replayed,
+     *         <code>false</code> else
+     *
+     * @since 2.4
+     */
+    public boolean accepts(String path, boolean directory) {
+        boolean accepted = UNLIMITED == depth || path.split("/").length <= depth;
+        for (int i = 0; accepted && i < excludePatterns.size(); i++) {
+            accepted = !excludePatterns.get(i).matcher(path).matches();
+        }
+        if (accepted && !includePatterns.isEmpty()) {
+            boolean included = false;
+            for (int i = 0; !included && i < includePatterns.size(); i++) {
+                Pattern pattern = includePatterns.get(i);
+                included = pattern.matcher(path).matches();
+                if (!included && directory) {
+                    // input ran out before the match failed, nested elements may match
+                    Matcher matcher = pattern.matcher(path + "/");
+                    included = matcher.matches() || matcher.hitEnd();
+                }
+            }
+            accepted = included;
+        }
+        return accepted;
+    }
+
+    /**
+     * Returns a textual representation of these options, which is equal for
+     * equal options.
+     *
+     * @return the textual representation
+     *
+     * @since 2.4
+     */
+    @Override
+    public String toString() {
+        return "include=" + includes + ";exclude=" + excludes + ";depth=" + depth;
+    }
+
+}
@@ -2,6 +2,8 @@ package de.uni_hildesheim.sse.exerciseSubmitter.submission;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
 
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
@@ -29,7 +31,7 @@ import de.uni_hildesheim.sse.exerciseSubmitter.submission.IMessage.MessageType;
  * 
  * @author Alexander Schmehl
  * @since 1.00
- * @version 2.00
+ * @version 2.4
  */
 public class Submission implements ISubmission {
 
@@ -65,6 +67,13 @@ public class Submission implements ISubmission {
      */
     private File path;
 
+    /**
+     * Stores the paths changed by the last replay, <b>null</b> if unknown.
+     * 
+     * @since 2.4
+     */
+    private ArrayList<String> changedPaths;
+
     /**
      * Sets the path of the directory to be submitted or where to replay a
      * submission to.
@@ -136,6 +145,30 @@ public class Submission implements ISubmission {
         this.message = message;
     }
 
+    /**
+     * Sets the paths changed by the last replay operation.
+     * 
+     * @param changedPaths the created, changed or deleted paths relative to
+     *        {@link #getPath()}, <b>null</b> if unknown
+     * 
+     * @since 2.4
+     */
+    public void setChangedPaths(Collection<String> changedPaths) {
+        this.changedPaths = null == changedPaths ? null : new ArrayList<String>(changedPaths);
+    }
+
+    /**
+     * Returns the paths changed by the last replay operation.
+     * 
+     * @return the created, changed or deleted paths relative to 
+     *         {@link #getPath()}, <b>null</b> if unknown
+     * 
+     * @since 2.4
+     */
+    public Collection<String> getChangedPaths() {
+        return changedPaths;
+    }
+
     /**
      * Unparses the message of the last execution returned by
      * {@link #getMessage()}. Unparsing may deliver individual messages if the
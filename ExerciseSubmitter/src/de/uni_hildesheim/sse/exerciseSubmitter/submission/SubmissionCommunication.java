@@ -1,9 +1,18 @@
 package de.uni_hildesheim.sse.exerciseSubmitter.submission;
 
 import java.io.File;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.core.runtime.IStatus;
 
 import de.uni_hildesheim.sse.exerciseSubmitter.Activator;
 import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
@@ -20,7 +29,7 @@ import net.ssehub.exercisesubmitter.protocol.frontend.SubmitterProtocol;
  * @author Alexander Schmehl
  * @author El-Sharkawy
  * @since 1.0
- * @version 2.1
+ * @version 2.4
  */
 public abstract class SubmissionCommunication implements IPathFactory {
 
@@ -30,6 +39,13 @@ public abstract class SubmissionCommunication implements IPathFactory {
      * @since 2.0
      */
     private static List<SubmissionCommunication> commInstances;
+
+    /**
+     * Stores the default timeout for contacting a server in seconds.
+     * 
+     * @since 2.4
+     */
+    private static final long DEFAULT_TIMEOUT = 60;
     
     /**
      * Handles the connection to the <b>Student Management System</b>.
@@ -73,7 +89,7 @@ public abstract class SubmissionCommunication implements IPathFactory {
     protected SubmissionCommunication(String username, String password) {
         this.mgmtProtocol = Activator.getProtocol();
         try {
-            mgmtProtocol.login(username, password);
+            LoginSession.getInstance().login(mgmtProtocol, username, password);
         } catch (UnknownCredentialsException e) {
             GuiUtils.openDialog(DialogType.ERROR, "Credentials are unknown by the student management system, "
                 + "please check that you use your RZ credentials.");
@@ -307,6 +323,22 @@ public abstract class SubmissionCommunication implements IPathFactory {
     public abstract List<IVersionedSubmission> getSubmissionsForReplay(Assignment assignment)
         throws CommunicationException;
 
+    /**
+     * Returns a page of the versioned/dated submissions of a concrete task, the most recent first. Subsequent pages
+     * are obtained by passing the revision of the last returned submission minus one as <code>startRevision</code>.
+     * The history is cached, i.e., repeated calls only transfer new or not yet requested versions.
+     * 
+     * @param assignment The submission that should be returned
+     * @param startRevision The revision to start with, negative for the most recent one
+     * @param limit The maximum number of versions to return
+     * @return a list of versioned/dated submissions, empty if there are no (further) versions
+     * @throws CommunicationException if any communication error occurs
+     * 
+     * @since 2.4
+     */
+    public abstract List<IVersionedSubmission> getSubmissionsForReplay(Assignment assignment, long startRevision,
+        int limit) throws CommunicationException;
+
     /**
      * Re-initializes data stored in this communication object.
      * 
@@ -318,7 +350,8 @@ public abstract class SubmissionCommunication implements IPathFactory {
     public abstract void reInitialize() throws CommunicationException;
 
     /**
-     * Replays a server-stored submission.
+     * Replays a server-stored submission. The paths changed by the replay are available via
+     * {@link ISubmission#getChangedPaths()} afterwards.
      * 
      * @param submission The information where to store the submission on the local computer
      * @param assignment The assignment representing the task/exercise to be submitted. Valid values can be obtained by
@@ -331,6 +364,26 @@ public abstract class SubmissionCommunication implements IPathFactory {
      */
     public abstract ISubmission replaySubmission(ISubmission submission, Assignment assignment,
         ProgressListener<ISubmission> listener) throws CommunicationException;
+
+    /**
+     * Replays the parts of a server-stored submission selected by <code>options</code>. Elements not selected are not
+     * transferred if supported by the implementation. By default, the entire submission is replayed, i.e., a
+     * superset of the selected elements.
+     * 
+     * @param submission The information where to store the submission on the local computer
+     * @param assignment The assignment representing the task/exercise to be submitted. Valid values can be obtained by
+     *        calling {@link #getSubmissionsForReplay()}.
+     * @param listener An optional listener to be informed on the progress of the replay operation
+     * @param options The elements to be replayed
+     * @return submission (might be refactored to also return an {@link Executable})
+     * @throws CommunicationException If any wrapped error occurrences
+     * 
+     * @since 2.4
+     */
+    public ISubmission replaySubmission(ISubmission submission, Assignment assignment,
+        ProgressListener<ISubmission> listener, ReplayOptions options) throws CommunicationException {
+        return replaySubmission(submission, assignment, listener);
+    }
     
     /**
      * Replays an entire task stored (i.e. all submissions) to a local 
@@ -350,7 +403,64 @@ public abstract class SubmissionCommunication implements IPathFactory {
         IPathFactory factory) throws CommunicationException;
 
     /**
-     * Replays a server-stored (dated) submission.
+     * Replays the parts of all submissions of a task selected by <code>options</code> to a local directory, e.g.,
+     * only the sources for a quick review. Elements not selected are not transferred if supported by the
+     * implementation. By default, the entire submissions are replayed, i.e., a superset of the selected elements.
+     * 
+     * @param path The target-path where to replay the submissions to (contents will be deleted before replaying the
+     *     submissions)
+     * @param assignment The assignment representing the task/exercise to be submitted. Valid values can be obtained by
+     *     calling {@link #getSubmissionsForReplay()}.
+     * @param listener An optional listener to be informed on the progress of the replay operation
+     * @param factory an instance able to create paths in the file system
+     * @param options The elements to be replayed
+     * @throws CommunicationException If any wrapped error occurrences
+     * 
+     * @since 2.4
+     */
+    public void replayEntireTask(File path, Assignment assignment, ProgressListener<ISubmission> listener, 
+        IPathFactory factory, ReplayOptions options) throws CommunicationException {
+        replayEntireTask(path, assignment, listener, factory);
+    }
+
+    /**
+     * Replays the parts of all submissions of a task selected by <code>options</code> into a ZIP archive, e.g., for
+     * offline tools. Each submission becomes a top-level directory of the archive. The submissions are streamed into
+     * the archive without intermediate files, i.e., a failing replay leaves an incomplete archive behind.
+     * 
+     * @param out The stream to write the archive to (not closed by this method)
+     * @param assignment The assignment representing the task/exercise to be submitted. Valid values can be obtained by
+     *     calling {@link #getSubmissionsForReplay()}.
+     * @param listener An optional listener to be informed on the progress of the replay operation
+     * @param options The elements to be replayed
+     * @throws CommunicationException If any wrapped error occurrences
+     * 
+     * @since 2.4
+     */
+    public abstract void replayEntireTask(OutputStream out, Assignment assignment,
+        ProgressListener<ISubmission> listener, ReplayOptions options) throws CommunicationException;
+
+    /**
+     * Browses a server-stored submission of a task without replaying it, e.g., to look at single files. This is
+     * only allowed in reviewer mode.
+     *
+     * @param assignment The assignment representing the task/exercise. Valid values can be obtained by calling
+     *     {@link #getSubmissionsForReview()}.
+     * @param submission The name of the submission (directory), e.g., the group name
+     * @param revision The revision to browse, negative for the latest revision
+     * @return The browser on the submission
+     * @throws CommunicationException If the submission does not exist, this instance is not in reviewer mode or in
+     *     the case of any wrapped error occurrences
+     *
+     * @since 2.4
+     */
+    public abstract ISubmissionBrowser browse(Assignment assignment, String submission, long revision)
+        throws CommunicationException;
+
+    /**
+     * Replays a server-stored (dated) submission. The paths changed by the
+     * replay are available via {@link ISubmission#getChangedPaths()} 
+     * afterwards.
      * 
      * @param submission
      *            the information where to store the submission on the local
@@ -373,6 +483,37 @@ public abstract class SubmissionCommunication implements IPathFactory {
         IVersionedSubmission version, ProgressListener<ISubmission> listener)
         throws CommunicationException;
 
+    /**
+     * Replays the parts of a server-stored (dated) submission selected by
+     * <code>options</code>. Elements not selected are not transferred if
+     * supported by the implementation. By default, the entire submission is
+     * replayed, i.e., a superset of the selected elements.
+     * 
+     * @param submission
+     *            the information where to store the submission on the local
+     *            computer
+     * @param version
+     *            the information carrying the date/time of the submission.
+     *            Valid values can be obtained by calling
+     *            {@link #getSubmissionsForReplay(String)}.
+     * @param listener
+     *            an optional listener to be informed on the progress of the
+     *            replay operation
+     * @param options
+     *            the elements to be replayed
+     * @return submission (might be refactored to also return an
+     *         {@link Executable})
+     * @throws CommunicationException
+     *             any wrapped error occurrences
+     * 
+     * @since 2.4
+     */
+    public ISubmission replaySubmission(ISubmission submission,
+        IVersionedSubmission version, ProgressListener<ISubmission> listener,
+        ReplayOptions options) throws CommunicationException {
+        return replaySubmission(submission, version, listener);
+    }
+
     /**
      * Creates the <code>subdirectory</code> in the specified
      * <code>path</code>.
@@ -423,7 +564,10 @@ public abstract class SubmissionCommunication implements IPathFactory {
      * user. On the first call, {@link #commInstances} will be initialized
      * according to the existing plugins ({@link #authenticateUser()}). On a
      * following call, the stored data on the instances will be validated by
-     * calling {@link #reInitialize()}.
+     * calling {@link #reInitialize()}. The configured servers are contacted
+     * concurrently, the instances are returned in the configured order. A
+     * server failing or not responding within its timeout is skipped. This
+     * method only fails if no server could be contacted.
      * 
      * @param userName
      *            the user name of the user to be connected to the server(s)
@@ -457,44 +601,48 @@ public abstract class SubmissionCommunication implements IPathFactory {
             return updateCommunicationInstances(listener);
         }
 
-        // otherwise read configuration and do plugin instantiation
+        // otherwise read configuration and contact all servers concurrently
         listener.notifyContactingStarted();
         clearInstances();
         commInstances = new ArrayList<SubmissionCommunication>();
         int count = getConfiguratedProtocolsCount();
         listener.notifyNumberOfServers(3 * count);
+        CommunicationInstanceListener merged = new MergingInstanceListener(listener);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, count));
         try {
-            int step = 1;
+            List<Future<SubmissionCommunication>> futures = new ArrayList<Future<SubmissionCommunication>>();
+            List<PendingInstance> pending = new ArrayList<PendingInstance>();
             for (int i = 1; i <= count; i++) {
-                String protocol = IConfiguration.INSTANCE.getProperty("protocol." + i, "");
-                listener.doStep("Contacting Server " + i, step++);
-                SubmissionCommunication comm = null;
-                for (SubmissionPlugin plugin : SubmissionPlugin.getPlugins()) {
-                    if (plugin.getProtocol().equalsIgnoreCase(protocol)) {
-                        comm = plugin.createInstance(userName, password, asReviewer);
-                    }
-                }
-                if (null == comm) {
-                    throw new CommunicationException(CommunicationException.SubmissionPublicMessage.PLUGIN_NOT_HANDLED,
-                        new Throwable());
-                } else {
-                    if (null != submissionUser && submissionUser.length() > 0) {
-                        comm.setUserNameForSubmission(submissionUser);
-                    }
-                    listener.doStep("Validating user data and reading file system structure on server " + i, step++);
-                    if (!comm.authenticateUser()) {
-                        throw new CommunicationException(
-                            CommunicationException.SubmissionPublicMessage.AUTHENTICATION_ERROR, new Throwable());
+                final int server = i;
+                final PendingInstance instance = new PendingInstance();
+                pending.add(instance);
+                futures.add(executor.submit(() -> instance.publish(contactServer(server, userName, password,
+                    asReviewer, submissionUser, merged))));
+            }
+            // collect in configuration order, the timeouts run concurrently
+            long start = System.currentTimeMillis();
+            CommunicationException failure = null;
+            for (int i = 1; i <= count; i++) {
+                try {
+                    SubmissionCommunication comm = join(futures.get(i - 1), pending.get(i - 1), i, start);
+                    if (null != comm) {
+                        commInstances.add(comm);
                     }
-                    commInstances.add(comm);
+                } catch (CommunicationException e) {
+                    failure = null == failure ? e : failure;
+                    Activator.log(IStatus.WARNING, "ExerciseSubmitter: skipping failed server " + i, e);
                 }
-                listener.doStep("Finished contacting server " + i, step++);
+            }
+            if (commInstances.isEmpty() && null != failure) {
+                throw failure;
             }
             listener.notifyContactingFinished(false);
         } catch (CommunicationException exception) {
             clearInstances();
             listener.notifyContactingFinished(true);
             throw exception;
+        } finally {
+            executor.shutdownNow();
         }
 
         if (commInstances.isEmpty()) {
@@ -503,7 +651,108 @@ public abstract class SubmissionCommunication implements IPathFactory {
         return commInstances;
     }
 
+    /**
+     * Creates and authenticates the communication instance of a configured server.
+     * 
+     * @param server the number of the server in the configuration (<code>protocol.<i>server</i></code>)
+     * @param userName the user name of the user to be connected to the server
+     * @param password the password of <code>userName</code>
+     * @param asReviewer initialize the instance in reviewer mode
+     * @param submissionUser an optional specialized user name for submission
+     * @param listener the listener for the notification on the progress, renumbering the steps of this server
+     * @return the authenticated communication instance
+     * @throws CommunicationException if the protocol is not handled, the user cannot be authenticated or in the
+     *     case of communication errors
+     * 
+     * @since 2.4
+     */
+    private static SubmissionCommunication contactServer(int server, String userName, String password,
+        boolean asReviewer, String submissionUser, CommunicationInstanceListener listener)
+        throws CommunicationException {
+        String protocol = IConfiguration.INSTANCE.getProperty("protocol." + server, "");
+        listener.doStep("Contacting Server " + server, 1);
+        SubmissionCommunication comm = null;
+        for (SubmissionPlugin plugin : SubmissionPlugin.getPlugins()) {
+            if (plugin.getProtocol().equalsIgnoreCase(protocol)) {
+                comm = plugin.createInstance(userName, password, asReviewer);
+            }
+        }
+        if (null == comm) {
+            throw new CommunicationException(CommunicationException.SubmissionPublicMessage.PLUGIN_NOT_HANDLED,
+                new Throwable());
+        }
+        if (null != submissionUser && submissionUser.length() > 0) {
+            comm.setUserNameForSubmission(submissionUser);
+        }
+        listener.doStep("Validating user data and reading file system structure on server " + server, 2);
+        boolean authenticated = false;
+        try {
+            authenticated = comm.authenticateUser();
+        } finally {
+            if (!authenticated) {
+                comm.cleanup();
+            }
+        }
+        if (!authenticated) {
+            throw new CommunicationException(
+                CommunicationException.SubmissionPublicMessage.AUTHENTICATION_ERROR, new Throwable());
+        }
+        listener.doStep("Finished contacting server " + server, 3);
+        return comm;
+    }
+
     // checkstyle: resume parameter number check
+
+    /**
+     * Waits for the communication instance of a configured server. The timeout of the server is given by
+     * <code>protocol.<i>server</i>.timeout</code> or, if not configured, by <code>protocol.timeout</code> (in
+     * seconds). A server exceeding its timeout is skipped, i.e., it does not delay the other servers, and its
+     * instance is cleaned up if it is created later.
+     * 
+     * @param future the pending communication instance
+     * @param pending the hand-over of the instance
+     * @param server the number of the server in the configuration
+     * @param start the time contacting the servers was started at
+     * @return the communication instance, <b>null</b> if the server was skipped
+     * @throws CommunicationException if contacting the server failed
+     * 
+     * @since 2.4
+     */
+    private static SubmissionCommunication join(Future<SubmissionCommunication> future, PendingInstance pending,
+        int server, long start) throws CommunicationException {
+        SubmissionCommunication result = null;
+        long timeout;
+        try {
+            timeout = Long.parseLong(IConfiguration.INSTANCE.getProperty("protocol." + server + ".timeout",
+                IConfiguration.INSTANCE.getProperty("protocol.timeout", String.valueOf(DEFAULT_TIMEOUT))).trim());
+        } catch (NumberFormatException e) {
+            timeout = DEFAULT_TIMEOUT;
+        }
+        try {
+            long remaining = Math.max(0, start + timeout * 1000 - System.currentTimeMillis());
+            result = future.get(remaining, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            pending.abandon();
+            future.cancel(true);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            Activator.log(IStatus.WARNING, "ExerciseSubmitter: skipping server " + server
+                + ", contacting it timed out or was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CommunicationException) {
+                throw (CommunicationException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw new CommunicationException(CommunicationException.SubmissionPublicMessage.
+                    SERVER_COMMUNICATION_FAILED, cause);
+            } else {
+                throw (Error) cause;
+            }
+        }
+        return result;
+    }
+
     
     /**
      * Updates ({@link #reInitialize()}) the stored communication instances
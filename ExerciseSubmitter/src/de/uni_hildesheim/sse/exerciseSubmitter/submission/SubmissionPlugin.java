@@ -65,6 +65,16 @@ public abstract class SubmissionPlugin {
      */
     public abstract SubmissionCommunication createInstance(String userName, String password, boolean asReviewer);
 
+    /**
+     * Releases the resources shared by all instances of this plugin, e.g.,
+     * background jobs or caches. Called once when the Eclipse plug-in is
+     * stopped, i.e., after all instances were cleaned up.
+     * 
+     * @since 2.4
+     */
+    public void shutdown() {
+    }
+
     /**
      * Registers a given plugin instance. An instance will not be registered
      * if one of the previously registered instances is of the same class.
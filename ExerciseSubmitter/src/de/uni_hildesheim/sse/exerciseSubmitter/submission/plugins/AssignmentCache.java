@@ -0,0 +1,571 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.Activator;
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.LoginSession;
+import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
+import net.ssehub.exercisesubmitter.protocol.frontend.Assignment;
+import net.ssehub.exercisesubmitter.protocol.frontend.ExerciseReviewerProtocol;
+import net.ssehub.exercisesubmitter.protocol.frontend.SubmissionTarget;
+import net.ssehub.exercisesubmitter.protocol.frontend.SubmitterProtocol;
+
+/**
+ * Caches the assignments and submission paths queried from the student
+ * management system. The assignments are queried again if they are older
+ * than <code>stdmgmt.ttl</code> seconds or were {@link #invalidate()
+ * invalidated}, e.g., after a submission. Concurrent refreshes share a single
+ * query, i.e., the server is contacted only once. The submission paths are
+ * kept per assignment until the next refresh. The open, reviewed and
+ * reviewable assignments are queried concurrently. If some of these queries
+ * fail, their previous results are kept and the assignments are flagged as
+ * {@link #isStale() stale}, i.e., they are queried again after
+ * <code>stdmgmt.retry</code> seconds instead of the time to live. Thus, a
+ * failing query neither blocks the other assignments nor is it repeated by
+ * each access. If all queries fail, the previous assignments are kept and the
+ * queries are repeated after the time to live. All queries are executed
+ * within the {@link LoginSession}, i.e., expired or rejected sessions are
+ * renewed on demand.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class AssignmentCache {
+
+    /**
+     * Stores the configuration key of the time to live in seconds.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_TTL = "stdmgmt.ttl";
+
+    /**
+     * Stores the configuration key of the time stale assignments are kept
+     * in seconds.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_RETRY = "stdmgmt.retry";
+
+    /**
+     * Stores the default time to live in seconds.
+     *
+     * @since 2.4
+     */
+    private static final long DEFAULT_TTL = 60;
+
+    /**
+     * Stores the default time stale assignments are kept in seconds.
+     *
+     * @since 2.4
+     */
+    private static final long DEFAULT_RETRY = 10;
+
+    /**
+     * Stores the index of the open assignments in a snapshot.
+     *
+     * @since 2.4
+     */
+    private static final int OPEN = 0;
+
+    /**
+     * Stores the index of the reviewed assignments in a snapshot.
+     *
+     * @since 2.4
+     */
+    private static final int REVIEWED = 1;
+
+    /**
+     * Stores the index of the reviewable assignments in a snapshot.
+     *
+     * @since 2.4
+     */
+    private static final int REVIEWABLE = 2;
+
+    /**
+     * Stores the protocol to query the student management system with.
+     *
+     * @since 2.4
+     */
+    private SubmitterProtocol protocol;
+
+    /**
+     * Stores whether reviewable assignments are also available for
+     * submission.
+     *
+     * @since 2.4
+     */
+    private boolean asReviewer;
+
+    /**
+     * Stores the time to live in milliseconds.
+     *
+     * @since 2.4
+     */
+    private long ttl;
+
+    /**
+     * Stores the time stale assignments are kept in milliseconds.
+     *
+     * @since 2.4
+     */
+    private long retry;
+
+    /**
+     * Stores the current assignments, initially empty and outdated.
+     *
+     * @since 2.4
+     */
+    private volatile Snapshot snapshot = Snapshot.createEmpty();
+
+    /**
+     * Stores the number of invalidations, i.e., snapshots and refreshes
+     * started before the last invalidation are outdated.
+     *
+     * @since 2.4
+     */
+    private long generation;
+
+    /**
+     * Stores the refresh in progress, <b>null</b> if none.
+     *
+     * @since 2.4
+     */
+    private FutureTask<Snapshot> inFlight;
+
+    /**
+     * Stores the generation {@link #inFlight} was started in.
+     *
+     * @since 2.4
+     */
+    private long inFlightGeneration;
+
+    /**
+     * Stores the submission paths by assignment name.
+     *
+     * @since 2.4
+     */
+    private Map<String, SubmissionTarget> paths = new ConcurrentHashMap<String, SubmissionTarget>();
+
+    /**
+     * Creates a new cache with the configured time to live.
+     *
+     * @param protocol the protocol to query the student management system
+     *        with
+     * @param asReviewer whether reviewable assignments are also available
+     *        for submission
+     *
+     * @since 2.4
+     */
+    AssignmentCache(SubmitterProtocol protocol, boolean asReviewer) {
+        this.protocol = protocol;
+        this.asReviewer = asReviewer;
+        this.ttl = getMillis(CONFIG_TTL, DEFAULT_TTL);
+        this.retry = Math.min(ttl, getMillis(CONFIG_RETRY, DEFAULT_RETRY));
+    }
+
+    /**
+     * Returns a configured duration.
+     *
+     * @param key the configuration key of the duration in seconds
+     * @param deflt the default duration in seconds
+     * @return the duration in milliseconds
+     *
+     * @since 2.4
+     */
+    private static long getMillis(String key, long deflt) {
+        long seconds;
+        try {
+            seconds = Long.parseLong(IConfiguration.INSTANCE.getProperty(key, String.valueOf(deflt)).trim());
+        } catch (NumberFormatException e) {
+            seconds = deflt;
+        }
+        return seconds * 1000;
+    }
+
+    /**
+     * Refreshes the assignments if required. If a suitable refresh is in
+     * progress, this method waits for its result instead of starting
+     * another one.
+     *
+     * @param force <code>true</code> if the assignments shall be refreshed
+     *        regardless of their age, <code>false</code> if they shall only
+     *        be refreshed if outdated
+     * @throws NetworkException if the student management system cannot be
+     *         queried
+     *
+     * @since 2.4
+     */
+    void refresh(boolean force) throws NetworkException {
+        FutureTask<Snapshot> task = null;
+        boolean owner = false;
+        long started = -1;
+        synchronized (this) {
+            if (force || isOutdated()) {
+                if (null == inFlight || inFlightGeneration != generation) {
+                    started = generation;
+                    long gen = started;
+                    inFlight = new FutureTask<Snapshot>(() -> load(gen));
+                    inFlightGeneration = generation;
+                    owner = true;
+                }
+                task = inFlight;
+            }
+        }
+        if (owner) {
+            task.run();
+            publish(task, started);
+        }
+        if (null != task) {
+            await(task);
+        }
+    }
+
+    /**
+     * Marks the assignments as outdated, e.g., after a submission. The next
+     * {@link #refresh(boolean)} queries the server, even if a refresh is in
+     * progress.
+     *
+     * @since 2.4
+     */
+    synchronized void invalidate() {
+        generation++;
+    }
+
+    /**
+     * Returns whether the current assignments are outdated.
+     *
+     * @return <code>true</code> if outdated, <code>false</code> else
+     *
+     * @since 2.4
+     */
+    private synchronized boolean isOutdated() {
+        long age = System.currentTimeMillis() - snapshot.loaded;
+        return snapshot.generation != generation || age >= (snapshot.stale ? retry : ttl);
+    }
+
+    /**
+     * Queries the assignments concurrently. Failed queries are replaced by
+     * their results in the current snapshot.
+     *
+     * @param started the generation the refresh was started in
+     * @return the assignments
+     * @throws NetworkException if all queries failed
+     *
+     * @since 2.4
+     */
+    private Snapshot load(long started) throws NetworkException {
+        List<Callable<List<Assignment>>> queries = new ArrayList<Callable<List<Assignment>>>();
+        LoginSession session = LoginSession.getInstance();
+        queries.add(() -> session.execute(protocol, protocol::getOpenAssignments));
+        queries.add(() -> session.execute(protocol, protocol::getReviewedAssignments));
+        queries.add(() -> session.execute(protocol, protocol::getReviewableAssignments));
+        Snapshot previous = snapshot;
+        Snapshot result = new Snapshot(started);
+        NetworkException failure = null;
+        int failed = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(queries.size());
+        try {
+            List<Future<List<Assignment>>> futures = new ArrayList<Future<List<Assignment>>>();
+            for (Callable<List<Assignment>> query : queries) {
+                futures.add(executor.submit(query));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    List<Assignment> list = new ArrayList<Assignment>(get(futures.get(i)));
+                    list.sort((a1, a2) -> a1.getName().compareTo(a2.getName()));
+                    result.lists.add(Collections.unmodifiableList(list));
+                } catch (NetworkException | InterruptedException e) {
+                    failure = e instanceof NetworkException ? (NetworkException) e : failure;
+                    failed++;
+                    result.lists.add(previous.lists.get(i));
+                    result.stale = true;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        if (null != failure && failed == queries.size()) {
+            throw failure;
+        }
+        if (result.stale && IConfiguration.INSTANCE.isDebuggingEnabled()) {
+            Activator.log("ExerciseSubmitter: " + failed + " assignment queries failed, keeping stale assignments",
+                failure);
+        }
+        return result;
+    }
+
+    /**
+     * Publishes the result of a finished refresh unless a more recent
+     * generation was published meanwhile. If the refresh failed, the
+     * current assignments are kept for another time to live.
+     *
+     * @param task the finished refresh
+     * @param started the generation the refresh was started in
+     *
+     * @since 2.4
+     */
+    private synchronized void publish(FutureTask<Snapshot> task, long started) {
+        Snapshot result;
+        try {
+            result = task.get();
+        } catch (InterruptedException | ExecutionException e) {
+            result = snapshot.retain(started);
+        }
+        if (result.generation >= snapshot.generation) {
+            snapshot = result;
+            paths.clear();
+        }
+        if (inFlight == task) {
+            inFlight = null;
+        }
+    }
+
+    /**
+     * Waits for a refresh and passes on its exceptions.
+     *
+     * @param task the refresh
+     * @throws NetworkException if the student management system cannot be
+     *         queried
+     *
+     * @since 2.4
+     */
+    private static void await(FutureTask<Snapshot> task) throws NetworkException {
+        try {
+            get(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for the result of a query and unwraps its exceptions.
+     *
+     * @param <T> the type of the result
+     * @param future the pending result
+     * @return the result
+     * @throws NetworkException if the student management system cannot be
+     *         queried
+     * @throws InterruptedException if waiting was interrupted
+     *
+     * @since 2.4
+     */
+    private static <T> T get(Future<T> future) throws NetworkException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof NetworkException) {
+                throw (NetworkException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw (Error) cause;
+            }
+        }
+    }
+
+    /**
+     * Returns whether some assignments are stale as their last query
+     * failed.
+     *
+     * @return <code>true</code> if stale, <code>false</code> else
+     *
+     * @since 2.4
+     */
+    boolean isStale() {
+        return snapshot.stale;
+    }
+
+    /**
+     * Returns the assignments available for submission.
+     *
+     * @return the assignments sorted by name
+     *
+     * @since 2.4
+     */
+    List<Assignment> getAvailableForSubmission() {
+        return snapshot.getForSubmission(asReviewer);
+    }
+
+    /**
+     * Returns the assignments available for replay.
+     *
+     * @return the assignments sorted by name
+     *
+     * @since 2.4
+     */
+    List<Assignment> getAvailableForReplay() {
+        return snapshot.lists.get(REVIEWED);
+    }
+
+    /**
+     * Returns the assignments available for review.
+     *
+     * @return the assignments sorted by name
+     *
+     * @since 2.4
+     */
+    List<Assignment> getAvailableForReview() {
+        return snapshot.lists.get(REVIEWABLE);
+    }
+
+    /**
+     * Returns the location of the submission of the current user for an
+     * assignment, queried once per assignment and refresh.
+     *
+     * @param assignment the assignment
+     * @return the location of the submission
+     * @throws NetworkException if the student management system cannot be
+     *         queried
+     *
+     * @since 2.4
+     */
+    SubmissionTarget getPathToSubmission(Assignment assignment) throws NetworkException {
+        SubmissionTarget result = paths.get(assignment.getName());
+        if (null == result) {
+            result = LoginSession.getInstance().execute(protocol, () -> protocol.getPathToSubmission(assignment));
+            paths.put(assignment.getName(), result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the location of the submission of a certain group in reviewer
+     * mode. Not cached, as reviewers access the submissions of all groups.
+     *
+     * @param assignment the assignment
+     * @param group the name of the group (submission directory)
+     * @return the location of the submission
+     * @throws NetworkException if the student management system cannot be
+     *         queried
+     *
+     * @since 2.4
+     */
+    SubmissionTarget getPathToSubmission(Assignment assignment, String group) throws NetworkException {
+        ExerciseReviewerProtocol reviewer = (ExerciseReviewerProtocol) protocol;
+        return LoginSession.getInstance().execute(protocol, () -> reviewer.getPathToSubmission(assignment, group));
+    }
+
+    /**
+     * The assignments of a single refresh.
+     *
+     * @since 2.4
+     * @version 2.4
+     */
+    private static class Snapshot {
+
+        /**
+         * Stores the generation the refresh was started in.
+         *
+         * @since 2.4
+         */
+        private long generation;
+
+        /**
+         * Stores the time the snapshot was loaded at.
+         *
+         * @since 2.4
+         */
+        private long loaded = System.currentTimeMillis();
+
+        /**
+         * Stores the open, reviewed and reviewable assignments, each sorted
+         * by name.
+         *
+         * @since 2.4
+         */
+        private List<List<Assignment>> lists = new ArrayList<List<Assignment>>();
+
+        /**
+         * Stores whether some lists are kept from a previous snapshot as
+         * their query failed.
+         *
+         * @since 2.4
+         */
+        private boolean stale;
+
+        /**
+         * Stores the assignments available for submission, created on
+         * demand.
+         *
+         * @since 2.4
+         */
+        private List<Assignment> forSubmission;
+
+        /**
+         * Creates an empty snapshot.
+         *
+         * @param generation the generation the refresh was started in
+         *
+         * @since 2.4
+         */
+        private Snapshot(long generation) {
+            this.generation = generation;
+        }
+
+        /**
+         * Returns the assignments available for submission.
+         *
+         * @param asReviewer whether reviewable assignments are also
+         *        available for submission
+         * @return the assignments sorted by name
+         *
+         * @since 2.4
+         */
+        private synchronized List<Assignment> getForSubmission(boolean asReviewer) {
+            if (null == forSubmission) {
+                List<Assignment> result = new ArrayList<Assignment>(lists.get(OPEN));
+                if (asReviewer) {
+                    result.addAll(lists.get(REVIEWABLE));
+                    result.sort((a1, a2) -> a1.getName().compareTo(a2.getName()));
+                }
+                forSubmission = Collections.unmodifiableList(result);
+            }
+            return forSubmission;
+        }
+
+        /**
+         * Creates an empty and outdated snapshot.
+         *
+         * @return the snapshot
+         *
+         * @since 2.4
+         */
+        private static Snapshot createEmpty() {
+            Snapshot result = new Snapshot(-1);
+            for (int i = 0; i <= REVIEWABLE; i++) {
+                result.lists.add(Collections.<Assignment>emptyList());
+            }
+            return result;
+        }
+
+        /**
+         * Creates a snapshot with the assignments of this snapshot, e.g., as
+         * a refresh failed.
+         *
+         * @param generation the generation of the failed refresh
+         * @return the snapshot
+         *
+         * @since 2.4
+         */
+        private Snapshot retain(long generation) {
+            Snapshot result = new Snapshot(generation);
+            result.lists = lists;
+            return result;
+        }
+
+    }
+
+}
@@ -0,0 +1,498 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.CommonStuff;
+
+/**
+ * A local content-addressable store for replayed files. File contents
+ * (blobs) are stored by their MD5 checksum, i.e., identical files of
+ * different revisions or submissions are stored only once. For each
+ * replayed URL and revision, a tree index in the {@link MetadataStore} maps
+ * the relative paths to the checksums so that replaying the same revision
+ * again does not need to transfer any file contents. The blobs are limited
+ * by the configured disk budget (<code>cache.size</code> in MB); least
+ * recently used blobs are evicted first. The last use of the blobs is
+ * recorded in the {@link MetadataStore}, i.e., the blobs themselves are never
+ * modified. Files are copied from the store unless
+ * <code>cache.hardlinks</code> is enabled. Then, identical files of all
+ * replays, e.g., the starter code of all submissions of a task, share their
+ * blob via hard links, i.e., they are stored and written only once. Hard
+ * links are only used if the file system reveals the number of links, so
+ * that shared files can be copied before being modified in place (see
+ * {@link CommonStuff#breakHardLink(File)}).
+ * <p>
+ * <b>Hard linked replays must be treated as read-only.</b> Copy on write is
+ * only applied to files edited in Eclipse editors (see
+ * {@link de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.HardLinkGuard}).
+ * Other writes, e.g., by builders, refactorings, external editors or tools,
+ * modify all linked copies and the blob. Such blobs are detected by their
+ * checksum and dropped when they are used the next time, but the copies
+ * replayed before stay modified.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class BlobStore {
+
+    /**
+     * Stores the configuration key of the disk budget in MB.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_SIZE = "cache.size";
+
+    /**
+     * Stores the configuration key enabling hard links.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_HARDLINKS = "cache.hardlinks";
+
+    /**
+     * Stores the default disk budget in MB.
+     *
+     * @since 2.4
+     */
+    private static final long DEFAULT_SIZE = 256;
+
+    /**
+     * Stores the singleton instance (lazily initialized).
+     *
+     * @since 2.4
+     */
+    private static BlobStore instance;
+
+    /**
+     * Stores the directory containing the blobs.
+     *
+     * @since 2.4
+     */
+    private File blobDir;
+
+    /**
+     * Stores the disk budget in bytes.
+     *
+     * @since 2.4
+     */
+    private long maxSize;
+
+    /**
+     * Stores whether files shall be hard linked instead of copied.
+     *
+     * @since 2.4
+     */
+    private boolean hardLinks;
+
+    /**
+     * Stores the last use of the blobs by MD5 checksum, initialized from the
+     * {@link MetadataStore}.
+     *
+     * @since 2.4
+     */
+    private Map<String, Long> uses;
+
+    /**
+     * Stores the uses not yet recorded in the {@link MetadataStore}.
+     *
+     * @since 2.4
+     */
+    private Map<String, Long> pendingUses = new HashMap<String, Long>();
+
+    /**
+     * Stores the total size of the blobs in bytes, determined once when
+     * creating the store and maintained when adding or deleting blobs.
+     *
+     * @since 2.4
+     */
+    private long size;
+
+    /**
+     * Creates a new blob store.
+     *
+     * @param directory the directory to store the blobs in
+     * @param maxSize the disk budget in bytes
+     * @param hardLinks <code>true</code> if files shall be hard linked,
+     *        <code>false</code> if files shall be copied from the store
+     *
+     * @since 2.4
+     */
+    BlobStore(File directory, long maxSize, boolean hardLinks) {
+        this.blobDir = new File(directory, "blobs");
+        this.maxSize = maxSize;
+        this.hardLinks = hardLinks && CommonStuff.canDetectHardLinks();
+        blobDir.mkdirs();
+        uses = MetadataStore.getInstance().getBlobUses();
+        size = getSize(collect());
+    }
+
+    /**
+     * Returns the blob store configured for this plug-in.
+     *
+     * @return the blob store
+     *
+     * @since 2.4
+     */
+    static synchronized BlobStore getInstance() {
+        if (null == instance) {
+            long size;
+            try {
+                size = Long.parseLong(IConfiguration.INSTANCE.getProperty(CONFIG_SIZE,
+                    String.valueOf(DEFAULT_SIZE)).trim());
+            } catch (NumberFormatException e) {
+                size = DEFAULT_SIZE;
+            }
+            boolean links = Boolean.valueOf(IConfiguration.INSTANCE.getProperty(CONFIG_HARDLINKS, "false").trim());
+            instance = new BlobStore(new File(IConfiguration.INSTANCE.getCacheDirectory(), "store"),
+                size * 1024 * 1024, links);
+        }
+        return instance;
+    }
+
+    /**
+     * Adds the contents of <code>file</code> to this store if not already
+     * present. If hard links are enabled, <code>file</code> becomes the blob
+     * or, if the blob is already present, is replaced by a link to the blob.
+     *
+     * @param checksum the MD5 checksum of <code>file</code>
+     * @param file the file to be stored
+     * @throws IOException in case that <code>file</code> cannot be read or
+     *         stored
+     *
+     * @since 2.4
+     */
+    void put(String checksum, File file) throws IOException {
+        File blob = getBlob(checksum);
+        if (hardLinks && !copyTo(checksum, file)) {
+            // first occurrence, the exported file becomes the blob
+            blob.getParentFile().mkdirs();
+            try {
+                Files.createLink(blob.toPath(), file.toPath());
+                resize(blob.length());
+            } catch (IOException | UnsupportedOperationException e) {
+                // e.g., on different file systems or stored concurrently, copied below if still missing
+            }
+        }
+        if (!blob.isFile()) {
+            blob.getParentFile().mkdirs();
+            File tmp = File.createTempFile(checksum, null, blob.getParentFile());
+            try {
+                Files.copy(file.toPath(), tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp.toPath(), blob.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+                resize(blob.length());
+            } finally {
+                tmp.delete();
+            }
+        }
+        use(checksum);
+    }
+
+    /**
+     * Fetches a file from the repository into this store.
+     *
+     * @param checksum the expected MD5 checksum
+     * @param repository the repository to fetch the file from
+     * @param path the path of the file relative to the location of
+     *        <code>repository</code>
+     * @param revision the revision of the file
+     * @throws SVNException in case that the file cannot be fetched or does
+     *         not match <code>checksum</code>
+     *
+     * @since 2.4
+     */
+    void fetch(String checksum, SVNRepository repository, String path, long revision) throws SVNException {
+        File blob = getBlob(checksum);
+        MessageDigest md5 = ExportEditor.createDigest();
+        try {
+            blob.getParentFile().mkdirs();
+            File tmp = File.createTempFile(checksum, null, blob.getParentFile());
+            try {
+                download(repository, path, revision, new DigestOutputStream(new FileOutputStream(tmp), md5));
+                String actual = SVNFileUtil.toHexDigest(md5);
+                if (!checksum.equals(actual)) {
+                    SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.CHECKSUM_MISMATCH,
+                        "error: checksum mismatch for ''{0}'', expected ''{1}'', actual ''{2}''",
+                        new Object[] {path, checksum, actual});
+                    throw new SVNException(err);
+                }
+                boolean existed = blob.isFile();
+                Files.move(tmp.toPath(), blob.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+                if (!existed) {
+                    resize(blob.length());
+                }
+            } finally {
+                tmp.delete();
+            }
+            use(checksum);
+        } catch (IOException e) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.IO_ERROR,
+                "error: cannot store ''{0}''", path);
+            throw new SVNException(err, e);
+        }
+    }
+
+    /**
+     * Downloads a file from the repository.
+     *
+     * @param repository the repository to fetch the file from
+     * @param path the path of the file relative to the location of
+     *        <code>repository</code>
+     * @param revision the revision of the file
+     * @param out the stream to write the file contents to (closed by this
+     *        method)
+     * @throws SVNException in case that the file cannot be fetched
+     * @throws IOException in case that <code>out</code> cannot be closed
+     *
+     * @since 2.4
+     */
+    private static void download(SVNRepository repository, String path, long revision, OutputStream out)
+        throws SVNException, IOException {
+        try {
+            repository.getFile(path, revision, null, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Materializes a blob as <code>target</code>, replacing an existing
+     * file. If hard links are enabled, the blob is verified before linking
+     * as a linked file may have been modified in place.
+     *
+     * @param checksum the MD5 checksum of the blob
+     * @param target the file to be created
+     * @return <code>true</code> if the blob was materialized,
+     *         <code>false</code> if the blob is not (or no longer) available
+     * @throws IOException in case that <code>target</code> cannot be written
+     *
+     * @since 2.4
+     */
+    boolean copyTo(String checksum, File target) throws IOException {
+        File blob = getBlob(checksum);
+        boolean available = blob.isFile();
+        if (available && hardLinks) {
+            try {
+                available = checksum.equals(SVNFileUtil.computeChecksum(blob));
+            } catch (SVNException e) {
+                available = false;
+            }
+            long length = blob.length();
+            if (!available && blob.delete()) {
+                resize(-length);
+            }
+        }
+        if (available) {
+            use(checksum);
+            Files.deleteIfExists(target.toPath());
+            boolean linked = false;
+            if (hardLinks) {
+                try {
+                    Files.createLink(target.toPath(), blob.toPath());
+                    linked = true;
+                } catch (IOException | UnsupportedOperationException e) {
+                    linked = false;
+                }
+            }
+            if (!linked) {
+                Files.copy(blob.toPath(), target.toPath());
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Returns the tree index of a replayed URL and revision.
+     *
+     * @param url the replayed URL
+     * @param revision the replayed revision
+     * @return the relative paths mapped to their MD5 checksum or
+     *         {@link ExportEditor#DIRECTORY}, <b>null</b> if the tree is not
+     *         known
+     *
+     * @since 2.4
+     */
+    Map<String, String> getTree(String url, long revision) {
+        return MetadataStore.getInstance().getTree(url, revision);
+    }
+
+    /**
+     * Records the tree index of a replayed URL and revision and stores the
+     * missing blobs from the replayed directory. Errors are ignored as the
+     * store is just an optimization.
+     *
+     * @param url the replayed URL
+     * @param revision the replayed revision
+     * @param directory the directory the revision was replayed to
+     * @param entries the relative paths mapped to their MD5 checksum or
+     *        {@link ExportEditor#DIRECTORY}
+     *
+     * @since 2.4
+     */
+    void putTree(String url, long revision, File directory, Map<String, String> entries) {
+        try {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                if (!ExportEditor.DIRECTORY.equals(entry.getValue())) {
+                    put(entry.getValue(), new File(directory, entry.getKey()));
+                }
+            }
+            // a tree must not be published before its blobs
+            MetadataStore.getInstance().putTree(url, revision, entries);
+        } catch (IOException e) {
+            // not recorded, replayed from the server again
+        }
+        evict();
+    }
+
+    /**
+     * Records the use of a blob. The use is written to the
+     * {@link MetadataStore} with the next tree or eviction.
+     *
+     * @param checksum the MD5 checksum of the blob
+     *
+     * @since 2.4
+     */
+    private synchronized void use(String checksum) {
+        Long now = System.currentTimeMillis();
+        uses.put(checksum, now);
+        pendingUses.put(checksum, now);
+    }
+
+    /**
+     * Deletes the least recently used blobs until the store fits into the
+     * disk budget and records the pending uses of the remaining blobs in the
+     * {@link MetadataStore}. The blobs are only listed if the maintained
+     * total size exceeds the budget. Tree indices referring to deleted blobs
+     * stay valid as missing blobs are fetched again.
+     *
+     * @since 2.4
+     */
+    synchronized void evict() {
+        List<String> deleted = new ArrayList<String>();
+        if (size > maxSize) {
+            List<File> files = collect();
+            size = getSize(files);
+            File[] lru = files.toArray(new File[files.size()]);
+            Arrays.sort(lru, (f1, f2) -> Long.compare(getLastUse(f1), getLastUse(f2)));
+            for (int i = 0; size > maxSize && i < lru.length; i++) {
+                long length = lru[i].length();
+                if (lru[i].delete()) {
+                    size -= length;
+                    deleted.add(lru[i].getName());
+                    uses.remove(lru[i].getName());
+                    pendingUses.remove(lru[i].getName());
+                }
+            }
+        }
+        MetadataStore.getInstance().putBlobUses(pendingUses, deleted);
+        pendingUses.clear();
+    }
+
+    /**
+     * Changes the total size of the blobs.
+     *
+     * @param delta the number of bytes added (positive) or deleted
+     *        (negative)
+     *
+     * @since 2.4
+     */
+    private synchronized void resize(long delta) {
+        size += delta;
+    }
+
+    /**
+     * Returns the total size of files.
+     *
+     * @param files the files
+     * @return the total size in bytes
+     *
+     * @since 2.4
+     */
+    private static long getSize(List<File> files) {
+        long result = 0;
+        for (File file : files) {
+            result += file.length();
+        }
+        return result;
+    }
+
+    /**
+     * Collects all blob files.
+     *
+     * @return the blob files
+     *
+     * @since 2.4
+     */
+    private List<File> collect() {
+        List<File> result = new ArrayList<File>();
+        collect(blobDir, result);
+        return result;
+    }
+
+    /**
+     * Returns the last use of a blob.
+     *
+     * @param blob the blob file
+     * @return the time of last use, <code>0</code> if unknown
+     *
+     * @since 2.4
+     */
+    private long getLastUse(File blob) {
+        Long result = uses.get(blob.getName());
+        return null == result ? 0 : result;
+    }
+
+    /**
+     * Collects all files below <code>dir</code>.
+     *
+     * @param dir the directory to be collected
+     * @param result the collected files (modified as a side effect)
+     *
+     * @since 2.4
+     */
+    private static void collect(File dir, List<File> result) {
+        File[] files = dir.listFiles();
+        if (null != files) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    collect(file, result);
+                } else {
+                    result.add(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the file storing the blob with the given checksum.
+     *
+     * @param checksum the MD5 checksum
+     * @return the blob file
+     *
+     * @since 2.4
+     */
+    private File getBlob(String checksum) {
+        return new File(new File(blobDir, checksum.substring(0, 2)), checksum);
+    }
+
+}
@@ -1,30 +1,70 @@
 package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.tmatesoft.svn.core.SVNCommitInfo;
 import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNErrorMessage;
 import org.tmatesoft.svn.core.SVNException;
 import org.tmatesoft.svn.core.SVNPropertyValue;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
 import org.tmatesoft.svn.core.io.diff.SVNDeltaProcessor;
 import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
 
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.CommonStuff;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.ISubmission;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.ProgressListener;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.ReplayOptions;
 
 /**
- * Realizes exporting submissions to local paths in the file system.
+ * Realizes exporting submissions to local paths in the file system. In 
+ * synchronization mode (see {@link #setSyncMode(boolean)}), existing files
+ * are only replaced if their contents differ from the exported revision and
+ * files which are not part of the exported revision are deleted, i.e.,
+ * unchanged files keep their modification time. All contents are staged in
+ * a sibling directory of the target directory and do not become visible 
+ * before {@link #commit()}, i.e., a failing export leaves the target 
+ * directory untouched.
  * 
  * @author Alexander Schmehl
  * @since 1.00
- * @version 2.00
+ * @version 2.4
  */
 class ExportEditor implements ISVNEditor {
 
+    /**
+     * Denotes directories in {@link #getEntries()}.
+     * 
+     * @since 2.4
+     */
+    static final String DIRECTORY = "dir";
+
+    /**
+     * The MD5 checksum of an empty file, i.e., of a file for which the server
+     * did not send any delta.
+     * 
+     * @since 2.4
+     */
+    private static final String EMPTY_CHECKSUM = "d41d8cd98f00b204e9800998ecf8427e";
+
     /**
      * Stores the (root) target directory.
      * 
@@ -47,11 +87,123 @@ class ExportEditor implements ISVNEditor {
     private ProgressListener<ISubmission> listener;
 
     /**
-     * The current export step number.
+     * The current export step number, shared with {@link #fork() forked}
+     * editors.
      * 
      * @since 1.00
      */
-    private int count = 1;
+    private AtomicInteger count = new AtomicInteger(1);
+
+    /**
+     * Stores the revision reported by the server via {@link #targetRevision(long)}.
+     * 
+     * @since 2.4
+     */
+    private long revision = -1;
+
+    /**
+     * Stores the MD5 checksum calculated while writing the current file,
+     * <b>null</b> if no delta was received for the current file.
+     * 
+     * @since 2.4
+     */
+    private String checksum;
+
+    /**
+     * Stores the files (relative paths) whose calculated checksum did not match
+     * the checksum sent by the server, mapped to the expected checksum.
+     * 
+     * @since 2.4
+     */
+    private Map<String, String> checksumMismatches = new LinkedHashMap<String, String>();
+
+    /**
+     * Stores whether this editor synchronizes the target directory instead of
+     * exporting into it.
+     * 
+     * @since 2.4
+     */
+    private boolean sync;
+
+    /**
+     * Stores the sibling directory of the target directory receiving all
+     * contents until {@link #commit()}, <b>null</b> if nothing was staged.
+     * 
+     * @since 2.4
+     */
+    private File stagingDirectory;
+
+    /**
+     * Stores the relative paths of the staged files to be moved into the 
+     * target directory in synchronization mode.
+     * 
+     * @since 2.4
+     */
+    private Set<String> stagedFiles = new LinkedHashSet<String>();
+
+    /**
+     * Stores the relative paths of the directories to be created in the 
+     * target directory in synchronization mode.
+     * 
+     * @since 2.4
+     */
+    private Set<String> stagedDirs = new LinkedHashSet<String>();
+
+    /**
+     * Stores the relative paths of the elements to be deleted from the
+     * target directory in synchronization mode.
+     * 
+     * @since 2.4
+     */
+    private Set<String> stagedDeletions = new LinkedHashSet<String>();
+
+    /**
+     * Stores the local file an opened file is based on, i.e., the base of
+     * the text delta, <b>null</b> if the current file was added.
+     * 
+     * @since 2.4
+     */
+    private File baseFile;
+
+    /**
+     * Stores the relative paths of all elements in the target directory
+     * known to match the exported revision, mapped to their MD5 checksum or
+     * {@link #DIRECTORY}.
+     * 
+     * @since 2.4
+     */
+    private Map<String, String> entries = new TreeMap<String, String>();
+
+    /**
+     * Stores the relative paths of all elements created, changed or deleted 
+     * in the target directory.
+     * 
+     * @since 2.4
+     */
+    private Set<String> changedPaths = new LinkedHashSet<String>();
+
+    /**
+     * Stores the elements to be exported.
+     * 
+     * @since 2.4
+     */
+    private ReplayOptions options = ReplayOptions.ALL;
+
+    /**
+     * Stores whether the current file is not accepted by {@link #options}
+     * and its contents are ignored.
+     * 
+     * @since 2.4
+     */
+    private boolean skipping;
+
+    /**
+     * Stores whether this editor exports only a part of the target directory
+     * into the staging directory of another editor (see {@link #fork()}).
+     * 
+     * @since 2.4
+     */
+    private boolean partial;
 
     /**
      * Creates an export editor for the specified <code>root</code>
@@ -71,7 +223,7 @@ class ExportEditor implements ISVNEditor {
         deltaProcessor = new SVNDeltaProcessor();
         this.listener = listener;
         if (null != listener) {
-            count = listener.getStep();
+            count.set(listener.getStep());
         }
     }
     
@@ -83,7 +235,482 @@ class ExportEditor implements ISVNEditor {
      * @since 2.00
      */
     public void setTargetDirectory(File targetDirectory) {
+        discard();
         this.targetDirectory = targetDirectory;
+        checksumMismatches.clear();
+        entries.clear();
+        changedPaths.clear();
+    }
+
+    /**
+     * Defines the elements in the target directory which are known to 
+     * match the revision the server sends the changes for, i.e., the
+     * state to be updated. Elements not contained in <code>entries</code>
+     * will be deleted in synchronization mode.
+     * 
+     * @param entries the relative paths mapped to their MD5 checksum or 
+     *        {@link #DIRECTORY}
+     * 
+     * @since 2.4
+     */
+    public void setEntries(Map<String, String> entries) {
+        this.entries.clear();
+        this.entries.putAll(entries);
+    }
+
+    /**
+     * Returns the elements in the target directory which match the
+     * exported revision after completing the edit.
+     * 
+     * @return the relative paths mapped to their MD5 checksum or 
+     *         {@link #DIRECTORY}
+     * 
+     * @since 2.4
+     */
+    public Map<String, String> getEntries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Returns the (root) target directory.
+     * 
+     * @return the target directory
+     * 
+     * @since 2.4
+     */
+    public File getTargetDirectory() {
+        return targetDirectory;
+    }
+
+    /**
+     * Enables or disables the synchronization mode. In synchronization mode,
+     * the contents of the target directory are compared with the exported 
+     * revision by their MD5 digests and only differing files are written.
+     * 
+     * @param sync <code>true</code> for synchronizing the target directory,
+     *        <code>false</code> for plain exporting (the default)
+     * 
+     * @since 2.4
+     */
+    public void setSyncMode(boolean sync) {
+        this.sync = sync;
+    }
+
+    /**
+     * Defines the elements to be exported. Elements which are not accepted
+     * by <code>options</code> are ignored, i.e., not written to the target
+     * directory, and, in synchronization mode, deleted from the target 
+     * directory. The server should be asked to omit as many of these elements
+     * as possible.
+     * 
+     * @param options the elements to be exported, <b>null</b> for all
+     * 
+     * @since 2.4
+     */
+    public void setReplayOptions(ReplayOptions options) {
+        this.options = null == options ? ReplayOptions.ALL : options;
+    }
+
+    /**
+     * Returns the elements to be exported.
+     * 
+     * @return the elements to be exported
+     * 
+     * @since 2.4
+     */
+    public ReplayOptions getReplayOptions() {
+        return options;
+    }
+
+    /**
+     * Returns the relative paths of the elements created, changed or deleted
+     * in the target directory since the last call of 
+     * {@link #setTargetDirectory(File)}. In plain export mode, this are all
+     * exported elements.
+     * 
+     * @return the relative paths (separated by <code>/</code>)
+     * 
+     * @since 2.4
+     */
+    public Set<String> getChangedPaths() {
+        return Collections.unmodifiableSet(changedPaths);
+    }
+
+    /**
+     * Returns the files whose checksum calculated while exporting did not match
+     * the checksum sent by the server.
+     * 
+     * @return the paths relative to the target directory mapped to the expected
+     *         MD5 checksums
+     * 
+     * @since 2.4
+     */
+    public Map<String, String> getChecksumMismatches() {
+        return Collections.unmodifiableMap(checksumMismatches);
+    }
+
+    /**
+     * Fetches the files recorded in {@link #getChecksumMismatches()} once more
+     * as full texts from <code>repository</code> and verifies them again.
+     * Only the affected files are transferred, not the entire export.
+     * 
+     * @param repository the repository the export was obtained from (same
+     *        location as used for the export)
+     * @throws SVNException if fetching fails or if a file still does not match
+     *         its expected checksum
+     * 
+     * @since 2.4
+     */
+    public void repairChecksumMismatches(SVNRepository repository) throws SVNException {
+        for (Map.Entry<String, String> entry : checksumMismatches.entrySet()) {
+            File file = getStagedFile(entry.getKey());
+            MessageDigest digest = createDigest();
+            try (OutputStream out = new DigestOutputStream(new FileOutputStream(file), digest)) {
+                repository.getFile(entry.getKey(), revision, null, out);
+            } catch (IOException e) {
+                SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.IO_ERROR,
+                    "error: cannot re-fetch file ''{0}''", file);
+                throw new SVNException(err, e);
+            }
+            String actual = SVNFileUtil.toHexDigest(digest);
+            if (!entry.getValue().equals(actual)) {
+                SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.CHECKSUM_MISMATCH,
+                    "error: checksum mismatch for ''{0}'', expected ''{1}'', actual ''{2}''",
+                    new Object[] {file, entry.getValue(), actual});
+                throw new SVNException(err);
+            }
+            stageFile(entry.getKey());
+        }
+        checksumMismatches.clear();
+    }
+
+    /**
+     * Creates an editor exporting a part of the target directory concurrently
+     * to this editor, e.g., on another session. The forked editor stages
+     * into the staging directory of this editor and shares the progress
+     * count, but neither commits nor discards the staged contents. After 
+     * completing the edit, its results must be {@link #merge(ExportEditor) 
+     * merged} into this editor before {@link #closeEdit()} is called.
+     * 
+     * @return the forked editor
+     * @throws SVNException if the staging directory cannot be created
+     * 
+     * @since 2.4
+     */
+    ExportEditor fork() throws SVNException {
+        ExportEditor result = new ExportEditor(targetDirectory, listener);
+        result.count = count;
+        result.sync = sync;
+        result.options = options;
+        result.revision = revision;
+        result.stagingDirectory = getStagingDirectory();
+        result.partial = true;
+        return result;
+    }
+
+    /**
+     * Takes over the results of a {@link #fork() forked} editor.
+     * 
+     * @param fork the forked editor after completing its edit
+     * 
+     * @since 2.4
+     */
+    void merge(ExportEditor fork) {
+        entries.putAll(fork.entries);
+        changedPaths.addAll(fork.changedPaths);
+        checksumMismatches.putAll(fork.checksumMismatches);
+        stagedFiles.addAll(fork.stagedFiles);
+        stagedDirs.addAll(fork.stagedDirs);
+        stagedDeletions.addAll(fork.stagedDeletions);
+    }
+
+    /**
+     * Notifies the listener (if present) that an element is going to be
+     * exported. Forked editors may notify concurrently.
+     * 
+     * @param path the path of the element
+     * 
+     * @since 2.4
+     */
+    private void notifyNextStep(String path) {
+        if (null != listener) {
+            synchronized (listener) {
+                listener.notifyNextStep(path);
+            }
+        }
+    }
+
+    /**
+     * Notifies the listener (if present) that an element was exported.
+     * Forked editors may notify concurrently.
+     * 
+     * @since 2.4
+     */
+    private void processedStep() {
+        if (null != listener) {
+            synchronized (listener) {
+                listener.processedStep(count.getAndIncrement());
+            }
+        }
+    }
+
+    /**
+     * Materializes a revision from <code>store</code> instead of receiving it
+     * from the server, i.e., replaces an entire edit. Blobs missing in 
+     * <code>store</code> are fetched individually from <code>repository</code>.
+     * In synchronization mode, unchanged files are not touched and files not
+     * contained in <code>tree</code> are deleted.
+     * 
+     * @param tree the relative paths mapped to their MD5 checksum or 
+     *        {@link #DIRECTORY}
+     * @param store the store holding the blobs
+     * @param repository the repository to fetch missing blobs from (same
+     *        location as for the export)
+     * @param revision the revision to be materialized
+     * @throws SVNException if fetching or writing fails
+     * 
+     * @since 2.4
+     */
+    public void materialize(Map<String, String> tree, BlobStore store, SVNRepository repository, long revision)
+        throws SVNException {
+        openRoot(revision);
+        for (Map.Entry<String, String> entry : tree.entrySet()) {
+            String path = entry.getKey();
+            String md5 = entry.getValue();
+            if (DIRECTORY.equals(md5)) {
+                addDir(path, null, -1);
+            } else if (options.accepts(path, false)) {
+                notifyNextStep(path);
+                File file = new File(targetDirectory, path);
+                boolean unchanged = sync && file.isFile() && md5.equals(SVNFileUtil.computeChecksum(file));
+                if (!unchanged) {
+                    materialize(path, md5, store, repository, revision);
+                    stageFile(path);
+                }
+                entries.put(path, md5);
+                processedStep();
+            }
+        }
+        closeEdit();
+    }
+
+    /**
+     * Materializes a single file from <code>store</code>.
+     * 
+     * @param path the relative path of the file
+     * @param md5 the MD5 checksum of the file
+     * @param store the store holding the blobs
+     * @param repository the repository to fetch a missing blob from
+     * @param revision the revision to be materialized
+     * @throws SVNException if fetching or writing fails
+     * 
+     * @since 2.4
+     */
+    private void materialize(String path, String md5, BlobStore store, SVNRepository repository, long revision)
+        throws SVNException {
+        File file = getStagedFile(path);
+        try {
+            if (!store.copyTo(md5, file)) {
+                store.fetch(md5, repository, path, revision);
+                if (!store.copyTo(md5, file)) {
+                    SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.IO_ERROR,
+                        "error: cannot materialize ''{0}''", file);
+                    throw new SVNException(err);
+                }
+            }
+        } catch (IOException e) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.IO_ERROR,
+                "error: cannot write ''{0}''", file);
+            throw new SVNException(err, e);
+        }
+    }
+
+    /**
+     * Makes the staged contents visible in the target directory. In 
+     * synchronization mode, the changed files are moved atomically into the
+     * target directory, i.e., unchanged files are not touched. Otherwise, the
+     * staging directory replaces the entire target directory.
+     * 
+     * @throws SVNException if moving the staged contents fails
+     * 
+     * @since 2.4
+     */
+    public void commit() throws SVNException {
+        if (null != stagingDirectory) {
+            try {
+                if (sync) {
+                    for (String path : stagedDeletions) {
+                        File file = new File(targetDirectory, path);
+                        if (file.isDirectory()) {
+                            CommonStuff.rmdir(file, true);
+                        } else {
+                            file.delete();
+                        }
+                    }
+                    for (String path : stagedDirs) {
+                        new File(targetDirectory, path).mkdirs();
+                    }
+                    for (String path : stagedFiles) {
+                        File file = new File(targetDirectory, path);
+                        file.getParentFile().mkdirs();
+                        move(getStagedFile(path), file);
+                    }
+                } else {
+                    replaceTarget();
+                }
+            } catch (IOException e) {
+                SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.IO_ERROR,
+                    "error: cannot move the replayed files into ''{0}''", targetDirectory);
+                throw new SVNException(err, e);
+            } finally {
+                discard();
+            }
+        }
+    }
+
+    /**
+     * Replaces the target directory by the staging directory. If the staging
+     * directory cannot be moved, the previous target directory is restored.
+     * 
+     * @throws IOException if moving fails
+     * 
+     * @since 2.4
+     */
+    private void replaceTarget() throws IOException {
+        File old = null;
+        if (targetDirectory.exists()) {
+            old = createSibling(".old");
+            old.delete();
+            move(targetDirectory, old);
+        }
+        try {
+            move(stagingDirectory, targetDirectory);
+        } catch (IOException e) {
+            if (null != old) {
+                try {
+                    move(old, targetDirectory);
+                } catch (IOException e1) {
+                    e.addSuppressed(e1);
+                }
+            }
+            throw e;
+        }
+        if (null != old) {
+            CommonStuff.rmdir(old, true);
+        }
+    }
+
+    /**
+     * Discards all staged contents, e.g., after a failing export. Nothing
+     * happens if there are no staged contents or if they were already 
+     * committed. A {@link #fork() forked} editor leaves the staging directory
+     * to its origin.
+     * 
+     * @since 2.4
+     */
+    public void discard() {
+        if (null != stagingDirectory) {
+            if (!partial && stagingDirectory.exists()) {
+                CommonStuff.rmdir(stagingDirectory, true);
+            }
+            stagingDirectory = null;
+        }
+        stagedFiles.clear();
+        stagedDirs.clear();
+        stagedDeletions.clear();
+        baseFile = null;
+    }
+
+    /**
+     * Returns the staging directory and creates it if required.
+     * 
+     * @return the staging directory
+     * @throws SVNException if the staging directory cannot be created
+     * 
+     * @since 2.4
+     */
+    private File getStagingDirectory() throws SVNException {
+        if (null == stagingDirectory) {
+            try {
+                stagingDirectory = createSibling(".replay");
+            } catch (IOException e) {
+                SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.IO_ERROR,
+                    "error: cannot create a staging directory for ''{0}''", targetDirectory);
+                throw new SVNException(err, e);
+            }
+        }
+        return stagingDirectory;
+    }
+
+    /**
+     * Creates a new hidden sibling directory of the target directory, i.e.,
+     * on the same file system.
+     * 
+     * @param suffix the suffix of the directory name
+     * @return the created directory
+     * @throws IOException if the directory cannot be created
+     * 
+     * @since 2.4
+     */
+    private File createSibling(String suffix) throws IOException {
+        File target = targetDirectory.getAbsoluteFile();
+        File parent = target.getParentFile();
+        parent.mkdirs();
+        return Files.createTempDirectory(parent.toPath(), "." + target.getName() + suffix).toFile();
+    }
+
+    /**
+     * Returns the staged file for <code>path</code> and creates the parent
+     * directories if required.
+     * 
+     * @param path
+     *            a file path relative to the root directory opened by
+     *            {@link #openRoot(long) openRoot()}
+     * @return the staged file
+     * @throws SVNException if the staging directory cannot be created
+     * 
+     * @since 2.4
+     */
+    private File getStagedFile(String path) throws SVNException {
+        File file = new File(getStagingDirectory(), path);
+        file.getParentFile().mkdirs();
+        return file;
+    }
+
+    /**
+     * Moves <code>source</code> to <code>target</code>, atomically if
+     * supported by the file system.
+     * 
+     * @param source the file or directory to move
+     * @param target the target file or directory (replaced if it is a file)
+     * @throws IOException if moving fails
+     * 
+     * @since 2.4
+     */
+    private static void move(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Creates an MD5 message digest as used by subversion for text checksums.
+     * 
+     * @return the message digest
+     * @throws SVNException if MD5 is not supported by the JVM
+     * 
+     * @since 2.4
+     */
+    static MessageDigest createDigest() throws SVNException {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.IO_ERROR,
+                "error: MD5 implementation not found");
+            throw new SVNException(err, e);
+        }
     }
 
     /**
@@ -98,6 +725,7 @@ class ExportEditor implements ISVNEditor {
      * @since 1.00
      */
     public void targetRevision(long revision) throws SVNException {
+        this.revision = revision;
     }
 
     /**
@@ -115,6 +743,7 @@ class ExportEditor implements ISVNEditor {
      * @since 1.00
      */
     public void openRoot(long revision) throws SVNException {
+        getStagingDirectory();
     }
 
     /**
@@ -137,20 +766,23 @@ class ExportEditor implements ISVNEditor {
      */
     public void addDir(String path, String copyFromPath,
         long copyFromRevision) throws SVNException {
-        if (null != listener) {
-            listener.notifyNextStep(path);
-        }
-        File newDir = new File(targetDirectory, path);
-        if (!newDir.exists()) {
-            if (!newDir.mkdirs()) {
-                SVNErrorMessage err = SVNErrorMessage.create(
-                    SVNErrorCode.IO_ERROR,
-                    "error: failed to add the directory ''{0}''.", newDir);
-                throw new SVNException(err);
+        if (options.accepts(path, true)) {
+            notifyNextStep(path);
+            File newDir = new File(getStagingDirectory(), path);
+            entries.put(path, DIRECTORY);
+            if (!sync || !new File(targetDirectory, path).isDirectory()) {
+                if (!newDir.isDirectory() && !newDir.mkdirs()) {
+                    SVNErrorMessage err = SVNErrorMessage.create(
+                        SVNErrorCode.IO_ERROR,
+                        "error: failed to add the directory ''{0}''.", newDir);
+                    throw new SVNException(err);
+                }
+                if (sync) {
+                    stagedDirs.add(path);
+                }
+                changedPaths.add(path);
             }
-        }
-        if (null != listener) {
-            listener.processedStep(count++);
+            processedStep();
         }
     }
 
@@ -160,7 +792,8 @@ class ExportEditor implements ISVNEditor {
      * and directories inside this directory.<br/> In case of export this
      * method will never be called because we reported that our 'working
      * copy' is empty and so server knows that there are no 'existing'
-     * directories.
+     * directories. When updating (in synchronization mode), the directory
+     * already exists locally and nothing has to be done.
      * 
      * @param path
      *            a directory path relative to the root directory opened by
@@ -219,7 +852,28 @@ class ExportEditor implements ISVNEditor {
      */
     public void addFile(String path, String copyFromPath,
         long copyFromRevision) throws SVNException {
-        File file = new File(targetDirectory, path);
+        checksum = null;
+        baseFile = null;
+        skipping = !options.accepts(path, false);
+        if (!skipping) {
+            addFile(path);
+        }
+    }
+
+    /**
+     * Creates an empty staged file for an added file.
+     * 
+     * @param path
+     *            a file path relative to the root directory opened by
+     *            {@link #openRoot(long) openRoot()}
+     * 
+     * @throws SVNException
+     *             if the file cannot be created
+     * 
+     * @since 2.4
+     */
+    private void addFile(String path) throws SVNException {
+        File file = getStagedFile(path);
         if (file.exists()) {
 /*                SVNErrorMessage err = SVNErrorMessage.create(
                     SVNErrorCode.IO_ERROR,
@@ -228,13 +882,9 @@ class ExportEditor implements ISVNEditor {
             file.delete();
         }
         try {
-            if (null != listener) {
-                listener.notifyNextStep(path);
-            }
+            notifyNextStep(path);
             file.createNewFile();
-            if (null != listener) {
-                listener.processedStep(count++);
-            }
+            processedStep();
         } catch (IOException e) {
             SVNErrorMessage err = SVNErrorMessage.create(
                 SVNErrorCode.IO_ERROR,
@@ -248,7 +898,8 @@ class ExportEditor implements ISVNEditor {
      * to modify file contents or properties.<br>
      * In case of export this method will never be called because we
      * reported that our 'working copy' is empty and so server knows that
-     * there are no 'existing' files.
+     * there are no 'existing' files. When updating (in synchronization mode),
+     * the local file is the base for the text delta.
      * 
      * @param path
      *            a file path relative to the root directory opened by
@@ -261,6 +912,9 @@ class ExportEditor implements ISVNEditor {
      * @since 1.00
      */
     public void openFile(String path, long revision) throws SVNException {
+        checksum = null;
+        baseFile = new File(targetDirectory, path);
+        skipping = !options.accepts(path, false);
     }
 
     /**
@@ -291,7 +945,8 @@ class ExportEditor implements ISVNEditor {
      * In this example delta will always contain instructions on how to
      * create a new file and so we set up deltaProcessor with 'null' base
      * file and target file to which we would like to store the result of
-     * delta application.
+     * delta application. The MD5 checksum of the result is calculated 
+     * while the windows are written.
      * 
      * @param path
      *            a file path relative to the edit root directory
@@ -306,8 +961,9 @@ class ExportEditor implements ISVNEditor {
      */
     public void applyTextDelta(String path, String baseChecksum)
         throws SVNException {
-        deltaProcessor.applyTextDelta((File) null,
-            new File(targetDirectory, path), false);
+        if (!skipping) {
+            deltaProcessor.applyTextDelta(baseFile, getStagedFile(path), true);
+        }
     }
 
     /**
@@ -330,7 +986,7 @@ class ExportEditor implements ISVNEditor {
      */
     public OutputStream textDeltaChunk(String path, 
         SVNDiffWindow diffWindow) throws SVNException {
-        return deltaProcessor.textDeltaChunk(diffWindow);
+        return skipping ? SVNFileUtil.DUMMY_OUT : deltaProcessor.textDeltaChunk(diffWindow);
     }
 
     /**
@@ -345,12 +1001,18 @@ class ExportEditor implements ISVNEditor {
      * @since 1.00
      */
     public void textDeltaEnd(String path) throws SVNException {
-        deltaProcessor.textDeltaEnd();
+        if (!skipping) {
+            checksum = deltaProcessor.textDeltaEnd();
+        }
     }
 
     /**
      * Called when file update is completed. This call always matches
-     * addFile or openFile call.
+     * addFile or openFile call. Compares the checksum calculated while 
+     * writing the file with <code>textChecksum</code> and records a
+     * mismatch for {@link #repairChecksumMismatches(SVNRepository)}. In
+     * synchronization mode, the received contents are only staged if they
+     * differ from the existing file.
      * 
      * @param path
      *            a file path relative to the root directory opened by
@@ -366,6 +1028,90 @@ class ExportEditor implements ISVNEditor {
      */
     public void closeFile(String path, String textChecksum)
         throws SVNException {
+        // an opened file without text delta keeps its contents
+        if (!skipping && (null == baseFile || null != checksum)) {
+            String actual = null == checksum ? EMPTY_CHECKSUM : checksum;
+            boolean mismatch = null != textChecksum && !textChecksum.equals(actual);
+            if (mismatch) {
+                checksumMismatches.put(path, textChecksum);
+            }
+            entries.put(path, mismatch ? textChecksum : actual);
+            // mismatching files are staged by repairChecksumMismatches
+            if (!mismatch) {
+                stageFile(path, actual);
+            }
+        }
+        checksum = null;
+        baseFile = null;
+        skipping = false;
+    }
+
+    /**
+     * Stages the received file at <code>path</code>. In synchronization mode,
+     * the received file is discarded if the existing file in the target
+     * directory has the same contents.
+     * 
+     * @param path
+     *            a file path relative to the root directory opened by
+     *            {@link #openRoot(long) openRoot()}
+     * @param received the MD5 checksum of the received contents
+     * 
+     * @throws SVNException
+     *             if the existing file cannot be read
+     * 
+     * @since 2.4
+     */
+    private void stageFile(String path, String received) throws SVNException {
+        File file = new File(targetDirectory, path);
+        File staged = getStagedFile(path);
+        boolean equal = sync && file.isFile() && file.length() == staged.length()
+            && received.equals(SVNFileUtil.computeChecksum(file));
+        if (equal) {
+            staged.delete();
+        } else {
+            stageFile(path);
+        }
+    }
+
+    /**
+     * Records that the file at <code>path</code> was staged and changed.
+     * 
+     * @param path
+     *            a file path relative to the root directory opened by
+     *            {@link #openRoot(long) openRoot()}
+     * 
+     * @since 2.4
+     */
+    private void stageFile(String path) {
+        if (sync) {
+            stagedFiles.add(path);
+        }
+        changedPaths.add(path);
+    }
+
+    /**
+     * Stages the deletion of all files and directories below <code>dir</code>
+     * which were not reported by the server in synchronization mode.
+     * 
+     * @param dir the directory to be cleaned up
+     * @param prefix the path of <code>dir</code> relative to the target
+     *        directory (empty or ending with <code>/</code>)
+     * 
+     * @since 2.4
+     */
+    private void deleteUnvisited(File dir, String prefix) {
+        File[] files = dir.listFiles();
+        if (null != files) {
+            for (File file : files) {
+                String path = prefix + file.getName();
+                if (!entries.containsKey(path)) {
+                    stagedDeletions.add(path);
+                    changedPaths.add(path);
+                } else if (file.isDirectory()) {
+                    deleteUnvisited(file, path + "/");
+                }
+            }
+        }
     }
 
     /**
@@ -383,7 +1129,8 @@ class ExportEditor implements ISVNEditor {
 
     /**
      * Instructs to delete an entry in the 'working copy'. Of course will
-     * not be called during export operation.
+     * not be called during export operation, but when updating (in 
+     * synchronization mode). The deletion happens in {@link #commit()}.
      * 
      * @param path
      *            an entry path relative to the root directory opened by
@@ -396,8 +1143,14 @@ class ExportEditor implements ISVNEditor {
      * 
      * @since 1.00
      */
-    public void deleteEntry(String path, long revision) 
+    public void deleteEntry(final String path, long revision) 
         throws SVNException {
+        if (sync) {
+            stagedDeletions.add(path);
+            entries.remove(path);
+            entries.keySet().removeIf(p -> p.startsWith(path + "/"));
+            changedPaths.add(path);
+        }
     }
 
     /**
@@ -435,7 +1188,8 @@ class ExportEditor implements ISVNEditor {
     }
 
     /**
-     * Called when update is completed.
+     * Called when update is completed. The received contents are still
+     * staged, call {@link #commit()} to make them visible.
      * 
      * @return information on the commit operation (may be <b>null</b>)
      * 
@@ -445,6 +1199,10 @@ class ExportEditor implements ISVNEditor {
      * @since 1.00
      */
     public SVNCommitInfo closeEdit() throws SVNException {
+        // a forked editor does not know the elements visited by the others
+        if (sync && !partial && null != targetDirectory) {
+            deleteUnvisited(targetDirectory, "");
+        }
         return null;
     }
 
@@ -458,6 +1216,7 @@ class ExportEditor implements ISVNEditor {
      * @since 1.00
      */
     public void abortEdit() throws SVNException {
+        discard();
     }
 
     @Override
@@ -0,0 +1,193 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNLogEntry;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+/**
+ * Caches the history (log) of paths in the repository. For each path, the
+ * cache covers a contiguous range of revisions, i.e., all log entries of the
+ * path within that range are known. Requests only transfer the entries of
+ * revisions committed after the range was covered and, if a requested page
+ * is not completely covered, the missing older entries up to the page
+ * size. Thus, the history of heavy submitters is neither transferred at once
+ * nor again and again. The histories are recorded in the
+ * {@link MetadataStore}, i.e., they are also not transferred again after a
+ * restart.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class LogCache {
+
+    /**
+     * Stores the histories by repository UUID and path.
+     *
+     * @since 2.4
+     */
+    private Map<String, History> histories = new HashMap<String, History>();
+
+    /**
+     * Returns a page of the history of a path, the most recent entry first.
+     *
+     * @param repository the session to fetch missing entries with
+     * @param path the (absolute) path in the repository
+     * @param startRevision the revision to start with, negative for the
+     *        latest revision
+     * @param limit the maximum number of entries
+     * @return the log entries, empty if there are no (further) entries
+     * @throws SVNException in the case of (communication) errors
+     *
+     * @since 2.4
+     */
+    synchronized List<SVNLogEntry> getEntries(SVNRepository repository, String path, long startRevision, int limit)
+        throws SVNException {
+        String key = repository.getRepositoryUUID(true) + path;
+        History history = histories.get(key);
+        if (null == history) {
+            history = new History(key);
+            histories.put(key, history);
+        }
+        long latest = repository.getLatestRevision();
+        history.update(repository, path, latest);
+        long end = startRevision < 0 ? latest : Math.min(startRevision, latest);
+        List<SVNLogEntry> result = history.select(end, limit);
+        while (result.size() < limit && history.oldest > 0) {
+            history.extend(repository, path, limit - result.size());
+            result = history.select(end, limit);
+        }
+        return result;
+    }
+
+    /**
+     * The cached history of a single path.
+     *
+     * @since 2.4
+     * @version 2.4
+     */
+    private static class History {
+
+        /**
+         * Stores the key of the history in the {@link MetadataStore}.
+         *
+         * @since 2.4
+         */
+        private String key;
+
+        /**
+         * Stores the log entries of the covered range, the most recent
+         * first.
+         *
+         * @since 2.4
+         */
+        private List<SVNLogEntry> entries = new ArrayList<SVNLogEntry>();
+
+        /**
+         * Stores the most recent covered revision, negative if nothing was
+         * fetched so far.
+         *
+         * @since 2.4
+         */
+        private long newest = -1;
+
+        /**
+         * Stores the oldest covered revision, <code>newest + 1</code> if
+         * the range is empty, <code>0</code> if the history is complete.
+         *
+         * @since 2.4
+         */
+        private long oldest;
+
+        /**
+         * Creates a history, initialized from the {@link MetadataStore}.
+         *
+         * @param key the key of the history in the store
+         *
+         * @since 2.4
+         */
+        private History(String key) {
+            this.key = key;
+            long[] range = MetadataStore.getInstance().getHistory(key, entries);
+            if (null != range) {
+                newest = range[0];
+                oldest = range[1];
+            }
+        }
+
+        /**
+         * Fetches the entries committed after the covered range.
+         *
+         * @param repository the session
+         * @param path the path
+         * @param latest the latest revision of the repository
+         * @throws SVNException in the case of (communication) errors
+         *
+         * @since 2.4
+         */
+        private void update(SVNRepository repository, String path, long latest) throws SVNException {
+            if (newest < 0) {
+                newest = latest;
+                oldest = latest + 1;
+            } else if (newest < latest) {
+                List<SVNLogEntry> newer = new ArrayList<SVNLogEntry>();
+                repository.log(new String[] {path}, latest, newest + 1, false, false, 0, e -> newer.add(e));
+                entries.addAll(0, newer);
+                newest = latest;
+                MetadataStore.getInstance().putHistory(key, newest, oldest, newer);
+            }
+        }
+
+        /**
+         * Fetches entries older than the covered range.
+         *
+         * @param repository the session
+         * @param path the path
+         * @param count the number of entries to fetch
+         * @throws SVNException in the case of (communication) errors
+         *
+         * @since 2.4
+         */
+        private void extend(SVNRepository repository, String path, int count) throws SVNException {
+            List<SVNLogEntry> older = new ArrayList<SVNLogEntry>();
+            try {
+                repository.log(new String[] {path}, oldest - 1, 0, false, false, count, e -> older.add(e));
+            } catch (SVNException e) {
+                SVNErrorCode code = e.getErrorMessage().getErrorCode();
+                // the path did not exist before the covered range
+                if (SVNErrorCode.FS_NOT_FOUND != code && SVNErrorCode.RA_DAV_PATH_NOT_FOUND != code) {
+                    throw e;
+                }
+            }
+            entries.addAll(older);
+            oldest = older.size() < count ? 0 : older.get(older.size() - 1).getRevision();
+            MetadataStore.getInstance().putHistory(key, newest, oldest, older);
+        }
+
+        /**
+         * Selects a page of the cached entries.
+         *
+         * @param end the most recent revision of the page
+         * @param limit the maximum number of entries
+         * @return the entries
+         *
+         * @since 2.4
+         */
+        private List<SVNLogEntry> select(long end, int limit) {
+            List<SVNLogEntry> result = new ArrayList<SVNLogEntry>();
+            for (int i = 0; i < entries.size() && result.size() < limit; i++) {
+                if (entries.get(i).getRevision() <= end) {
+                    result.add(entries.get(i));
+                }
+            }
+            return result;
+        }
+
+    }
+
+}
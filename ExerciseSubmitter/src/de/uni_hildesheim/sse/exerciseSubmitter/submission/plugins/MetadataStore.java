@@ -0,0 +1,669 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.tmatesoft.sqljet.core.SqlJetErrorCode;
+import org.tmatesoft.sqljet.core.SqlJetException;
+import org.tmatesoft.sqljet.core.schema.SqlJetConflictAction;
+import org.tmatesoft.sqljet.core.table.ISqlJetCursor;
+import org.tmatesoft.sqljet.core.table.ISqlJetTable;
+import org.tmatesoft.sqljet.core.table.ISqlJetTransaction;
+import org.tmatesoft.sqljet.core.table.SqlJetDb;
+import org.tmatesoft.svn.core.SVNLogEntry;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.SubmissionDirEntry;
+
+/**
+ * An embedded database (SQLJet) for the metadata cached on the client side.
+ * The database is stored in the {@link IConfiguration#getCacheDirectory()
+ * cache directory}, i.e., the state location of the plug-in, so that the
+ * caches survive restarts. It keeps the histories of paths (see
+ * {@link LogCache}), the tree indices and file checksums of replayed
+ * revisions (see {@link BlobStore}), the directory listings of browsed
+ * revisions (see {@link SubmissionBrowser}) and the last use of the blobs
+ * of the {@link BlobStore}. Each element is looked up via
+ * an index on its path or URL and revision, each modification is a
+ * transaction of its own.
+ * <p>
+ * The schema is versioned. As the database just caches data, a database of
+ * another schema version or a damaged database is replaced by an empty one
+ * and errors are not propagated, i.e., the operations behave as on an empty
+ * database. If the database exceeds <code>cache.metadata.size</code> (MB)
+ * when opened, it is compacted by copying the elements used within the last
+ * <code>cache.metadata.retention</code> days into a new database, which
+ * replaces the old one atomically. Thus, a crash while compacting leaves the
+ * old database intact.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class MetadataStore {
+
+    /**
+     * Stores the configuration key of the size triggering a compaction in
+     * MB.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_SIZE = "cache.metadata.size";
+
+    /**
+     * Stores the configuration key of the number of days unused elements
+     * are kept when compacting.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_RETENTION = "cache.metadata.retention";
+
+    /**
+     * Stores the name of the database file in the cache directory.
+     *
+     * @since 2.4
+     */
+    private static final String FILE_NAME = "metadata.db";
+
+    /**
+     * Stores the version of the schema, to be increased on each change of
+     * {@link #SCHEMA}.
+     *
+     * @since 2.4
+     */
+    private static final int SCHEMA_VERSION = 1;
+
+    /**
+     * Stores the default size triggering a compaction in MB.
+     *
+     * @since 2.4
+     */
+    private static final long DEFAULT_SIZE = 32;
+
+    /**
+     * Stores the default number of days unused elements are kept.
+     *
+     * @since 2.4
+     */
+    private static final long DEFAULT_RETENTION = 30;
+
+    /**
+     * Stores the milliseconds of a day, the granularity of recording the
+     * usage of elements.
+     *
+     * @since 2.4
+     */
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Stores the schema. Each element consists of a head table carrying the
+     * key and the time of last use (<code>used</code>) and, optionally, a
+     * table of the contained rows referring to the key of the head.
+     *
+     * @since 2.4
+     */
+    private static final String[] SCHEMA = {
+        "CREATE TABLE histories (path TEXT NOT NULL, newest INTEGER, oldest INTEGER, used INTEGER)",
+        "CREATE UNIQUE INDEX histories_key ON histories (path)",
+        "CREATE TABLE log_entries (path TEXT NOT NULL, revision INTEGER NOT NULL, author TEXT, date INTEGER, "
+            + "message TEXT)",
+        "CREATE UNIQUE INDEX log_entries_key ON log_entries (path, revision)",
+        "CREATE TABLE trees (url TEXT NOT NULL, revision INTEGER NOT NULL, used INTEGER)",
+        "CREATE UNIQUE INDEX trees_key ON trees (url, revision)",
+        "CREATE TABLE tree_entries (url TEXT NOT NULL, revision INTEGER NOT NULL, path TEXT NOT NULL, "
+            + "checksum TEXT)",
+        "CREATE INDEX tree_entries_key ON tree_entries (url, revision)",
+        "CREATE TABLE listings (url TEXT NOT NULL, revision INTEGER NOT NULL, dir TEXT NOT NULL, used INTEGER)",
+        "CREATE UNIQUE INDEX listings_key ON listings (url, revision, dir)",
+        "CREATE TABLE listing_entries (url TEXT NOT NULL, revision INTEGER NOT NULL, dir TEXT NOT NULL, "
+            + "name TEXT NOT NULL, directory INTEGER, size INTEGER, date INTEGER, author TEXT)",
+        "CREATE INDEX listing_entries_key ON listing_entries (url, revision, dir)",
+        "CREATE TABLE blobs (checksum TEXT NOT NULL, used INTEGER)",
+        "CREATE UNIQUE INDEX blobs_key ON blobs (checksum)",
+    };
+
+    /**
+     * Stores the elements of {@link #SCHEMA} as head table, contained
+     * table (may be <b>null</b>) and the indices of both on the key of the
+     * head table.
+     *
+     * @since 2.4
+     */
+    private static final String[][] ELEMENTS = {
+        {"histories", "log_entries", "histories_key", "log_entries_key"},
+        {"trees", "tree_entries", "trees_key", "tree_entries_key"},
+        {"listings", "listing_entries", "listings_key", "listing_entries_key"},
+        {"blobs", null, "blobs_key", null},
+    };
+
+    /**
+     * Stores the name of the column recording the last use.
+     *
+     * @since 2.4
+     */
+    private static final String USED = "used";
+
+    /**
+     * Stores the singleton instance (lazily initialized).
+     *
+     * @since 2.4
+     */
+    private static MetadataStore instance;
+
+    /**
+     * Stores the database, <b>null</b> if it cannot be opened.
+     *
+     * @since 2.4
+     */
+    private SqlJetDb db;
+
+    /**
+     * Creates a new store.
+     *
+     * @param file the database file
+     * @param maxSize the size triggering a compaction in bytes
+     * @param retention the time unused elements are kept when compacting in
+     *        milliseconds
+     *
+     * @since 2.4
+     */
+    MetadataStore(File file, long maxSize, long retention) {
+        File tmp = new File(file.getPath() + ".tmp");
+        // left by a crash while compacting
+        tmp.delete();
+        try {
+            if (file.length() > maxSize) {
+                compact(file, tmp, System.currentTimeMillis() - retention);
+            }
+            db = open(file);
+        } catch (SqlJetException | IOException e) {
+            // incompatible or damaged, just a cache
+            tmp.delete();
+            file.delete();
+            new File(file.getPath() + "-journal").delete();
+            try {
+                db = open(file);
+            } catch (SqlJetException e1) {
+                db = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the metadata store of this plug-in.
+     *
+     * @return the metadata store
+     *
+     * @since 2.4
+     */
+    static synchronized MetadataStore getInstance() {
+        if (null == instance) {
+            File file = new File(IConfiguration.INSTANCE.getCacheDirectory(), FILE_NAME);
+            instance = new MetadataStore(file, getLong(CONFIG_SIZE, DEFAULT_SIZE) * 1024 * 1024,
+                getLong(CONFIG_RETENTION, DEFAULT_RETENTION) * DAY);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns a numerical configuration value.
+     *
+     * @param key the configuration key
+     * @param deflt the default value
+     * @return the configured value or <code>deflt</code>
+     *
+     * @since 2.4
+     */
+    private static long getLong(String key, long deflt) {
+        long result;
+        try {
+            result = Long.parseLong(IConfiguration.INSTANCE.getProperty(key, String.valueOf(deflt)).trim());
+        } catch (NumberFormatException e) {
+            result = deflt;
+        }
+        return result;
+    }
+
+    /**
+     * Opens the database and creates the schema if the database is empty.
+     *
+     * @param file the database file
+     * @return the database
+     * @throws SqlJetException if the database is damaged or of another
+     *         schema version
+     *
+     * @since 2.4
+     */
+    private static SqlJetDb open(File file) throws SqlJetException {
+        SqlJetDb result = SqlJetDb.open(file, true);
+        try {
+            result.runWriteTransaction(db -> {
+                int version = db.getOptions().getUserVersion();
+                if (0 == version) {
+                    for (String statement : SCHEMA) {
+                        if (statement.startsWith("CREATE TABLE")) {
+                            db.createTable(statement);
+                        } else {
+                            db.createIndex(statement);
+                        }
+                    }
+                    db.getOptions().setUserVersion(SCHEMA_VERSION);
+                } else if (SCHEMA_VERSION != version) {
+                    throw new SqlJetException(SqlJetErrorCode.SCHEMA, "schema version " + version);
+                }
+                return null;
+            });
+        } catch (SqlJetException e) {
+            result.close();
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Compacts a database by copying the elements used after
+     * <code>limit</code> into a new database, which replaces the old one
+     * atomically.
+     *
+     * @param file the database file
+     * @param tmp the file to create the new database in
+     * @param limit the minimum time of last use of the elements to be kept
+     * @throws SqlJetException if the database is damaged or of another
+     *         schema version
+     * @throws IOException if the old database cannot be replaced
+     *
+     * @since 2.4
+     */
+    private static void compact(File file, File tmp, long limit) throws SqlJetException, IOException {
+        SqlJetDb source = open(file);
+        try {
+            SqlJetDb target = open(tmp);
+            try {
+                target.runWriteTransaction(t -> source.runReadTransaction(s -> {
+                    for (String[] element : ELEMENTS) {
+                        copy(s, t, element, limit);
+                    }
+                    return null;
+                }));
+            } finally {
+                target.close();
+            }
+        } finally {
+            source.close();
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Copies the elements of a kind used after <code>limit</code>.
+     *
+     * @param source the database to copy from
+     * @param target the database to copy to
+     * @param element the tables and indices of the element (see
+     *        {@link #ELEMENTS})
+     * @param limit the minimum time of last use of the elements to be copied
+     * @throws SqlJetException in the case of database errors
+     *
+     * @since 2.4
+     */
+    private static void copy(SqlJetDb source, SqlJetDb target, String[] element, long limit)
+        throws SqlJetException {
+        ISqlJetTable head = source.getTable(element[0]);
+        int keys = head.getIndexDef(element[2]).getColumns().size();
+        ISqlJetCursor cursor = head.open();
+        try {
+            while (!cursor.eof()) {
+                if (cursor.getInteger(USED) >= limit) {
+                    Object[] row = cursor.getRowValues();
+                    target.getTable(element[0]).insert(row);
+                    if (null != element[1]) {
+                        Object[] key = new Object[keys];
+                        System.arraycopy(row, 0, key, 0, keys);
+                        ISqlJetCursor contained = source.getTable(element[1]).lookup(element[3], key);
+                        try {
+                            while (!contained.eof()) {
+                                target.getTable(element[1]).insert(contained.getRowValues());
+                                contained.next();
+                            }
+                        } finally {
+                            contained.close();
+                        }
+                    }
+                }
+                cursor.next();
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Runs a transaction. Errors are ignored, i.e., the transaction is
+     * rolled back.
+     *
+     * @param transaction the transaction
+     * @return the result of the transaction, <b>null</b> if the database is
+     *         not available or in the case of errors
+     *
+     * @since 2.4
+     */
+    private synchronized Object run(ISqlJetTransaction transaction) {
+        Object result = null;
+        if (null != db) {
+            try {
+                result = db.runWriteTransaction(transaction);
+            } catch (SqlJetException e) {
+                result = null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Looks up the head of an element and records its use. The use is
+     * recorded at most once a day to avoid writing on each read.
+     *
+     * @param db the database in a write transaction
+     * @param table the head table
+     * @param index the index on the key
+     * @param key the key
+     * @return <code>true</code> if the element exists, <code>false</code>
+     *         else
+     * @throws SqlJetException in the case of database errors
+     *
+     * @since 2.4
+     */
+    private static boolean use(SqlJetDb db, String table, String index, Object... key) throws SqlJetException {
+        ISqlJetCursor cursor = db.getTable(table).lookup(index, key);
+        boolean result = !cursor.eof();
+        try {
+            long now = System.currentTimeMillis();
+            if (result && cursor.getInteger(USED) < now - DAY) {
+                cursor.updateByFieldNames(Collections.<String, Object>singletonMap(USED, now));
+            }
+        } finally {
+            cursor.close();
+        }
+        return result;
+    }
+
+    /**
+     * Deletes an element.
+     *
+     * @param db the database in a write transaction
+     * @param element the tables and indices of the element (see
+     *        {@link #ELEMENTS})
+     * @param key the key
+     * @throws SqlJetException in the case of database errors
+     *
+     * @since 2.4
+     */
+    private static void delete(SqlJetDb db, String[] element, Object... key) throws SqlJetException {
+        for (int i = 0; i < 2; i++) {
+            if (null != element[i]) {
+                ISqlJetCursor cursor = db.getTable(element[i]).lookup(element[i + 2], key);
+                try {
+                    while (!cursor.eof()) {
+                        cursor.delete();
+                    }
+                } finally {
+                    cursor.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cached history of a path.
+     *
+     * @param path the path including the identification of the repository
+     * @param entries the log entries of the covered range, the most recent
+     *        first (modified as a side effect)
+     * @return the most recent and the oldest covered revision as in
+     *         {@link LogCache}, <b>null</b> if the history is not known
+     *
+     * @since 2.4
+     */
+    long[] getHistory(String path, List<SVNLogEntry> entries) {
+        return (long[]) run(db -> {
+            long[] result = null;
+            if (use(db, ELEMENTS[0][0], ELEMENTS[0][2], path)) {
+                ISqlJetCursor cursor = db.getTable(ELEMENTS[0][0]).lookup(ELEMENTS[0][2], path);
+                try {
+                    result = new long[] {cursor.getInteger("newest"), cursor.getInteger("oldest")};
+                } finally {
+                    cursor.close();
+                }
+                cursor = db.getTable(ELEMENTS[0][1]).lookup(ELEMENTS[0][3], path).reverse();
+                try {
+                    while (!cursor.eof()) {
+                        Date date = cursor.isNull("date") ? null : new Date(cursor.getInteger("date"));
+                        entries.add(new SVNLogEntry(null, cursor.getInteger("revision"), cursor.getString("author"),
+                            date, cursor.getString("message")));
+                        cursor.next();
+                    }
+                } finally {
+                    cursor.close();
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Records further log entries of a path.
+     *
+     * @param path the path including the identification of the repository
+     * @param newest the most recent covered revision
+     * @param oldest the oldest covered revision
+     * @param entries the log entries not recorded so far
+     *
+     * @since 2.4
+     */
+    void putHistory(String path, long newest, long oldest, Collection<SVNLogEntry> entries) {
+        run(db -> {
+            ISqlJetTable table = db.getTable(ELEMENTS[0][1]);
+            for (SVNLogEntry entry : entries) {
+                table.insertOr(SqlJetConflictAction.REPLACE, path, entry.getRevision(), entry.getAuthor(),
+                    null == entry.getDate() ? null : entry.getDate().getTime(), entry.getMessage());
+            }
+            ISqlJetCursor cursor = db.getTable(ELEMENTS[0][0]).lookup(ELEMENTS[0][2], path);
+            try {
+                if (!cursor.eof()) {
+                    cursor.delete();
+                }
+            } finally {
+                cursor.close();
+            }
+            db.getTable(ELEMENTS[0][0]).insert(path, newest, oldest, System.currentTimeMillis());
+            return null;
+        });
+    }
+
+    /**
+     * Returns the tree index of a replayed URL and revision.
+     *
+     * @param url the replayed URL
+     * @param revision the replayed revision
+     * @return the relative paths mapped to their MD5 checksum or
+     *         {@link ExportEditor#DIRECTORY}, <b>null</b> if the tree is not
+     *         known
+     *
+     * @since 2.4
+     */
+    @SuppressWarnings("unchecked")
+    Map<String, String> getTree(String url, long revision) {
+        return (Map<String, String>) run(db -> {
+            Map<String, String> result = null;
+            if (use(db, ELEMENTS[1][0], ELEMENTS[1][2], url, revision)) {
+                result = new TreeMap<String, String>();
+                ISqlJetCursor cursor = db.getTable(ELEMENTS[1][1]).lookup(ELEMENTS[1][3], url, revision);
+                try {
+                    while (!cursor.eof()) {
+                        result.put(cursor.getString("path"), cursor.getString("checksum"));
+                        cursor.next();
+                    }
+                } finally {
+                    cursor.close();
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Records the tree index of a replayed URL and revision, replacing a
+     * known one.
+     *
+     * @param url the replayed URL
+     * @param revision the replayed revision
+     * @param entries the relative paths mapped to their MD5 checksum or
+     *        {@link ExportEditor#DIRECTORY}
+     *
+     * @since 2.4
+     */
+    void putTree(String url, long revision, Map<String, String> entries) {
+        run(db -> {
+            delete(db, ELEMENTS[1], url, revision);
+            ISqlJetTable table = db.getTable(ELEMENTS[1][1]);
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                table.insert(url, revision, entry.getKey(), entry.getValue());
+            }
+            db.getTable(ELEMENTS[1][0]).insert(url, revision, System.currentTimeMillis());
+            return null;
+        });
+    }
+
+    /**
+     * Returns the listing of a directory in a revision.
+     *
+     * @param url the URL of the browsed submission
+     * @param revision the browsed revision
+     * @param dir the path of the directory relative to <code>url</code>
+     * @return the entries, <b>null</b> if the listing is not known
+     *
+     * @since 2.4
+     */
+    @SuppressWarnings("unchecked")
+    List<SubmissionDirEntry> getListing(String url, long revision, String dir) {
+        return (List<SubmissionDirEntry>) run(db -> {
+            List<SubmissionDirEntry> result = null;
+            if (use(db, ELEMENTS[2][0], ELEMENTS[2][2], url, revision, dir)) {
+                result = new ArrayList<SubmissionDirEntry>();
+                ISqlJetCursor cursor = db.getTable(ELEMENTS[2][1]).lookup(ELEMENTS[2][3], url, revision, dir);
+                try {
+                    while (!cursor.eof()) {
+                        Date date = cursor.isNull("date") ? null : new Date(cursor.getInteger("date"));
+                        result.add(new SubmissionDirEntry(cursor.getString("name"), cursor.getInteger("size"),
+                            date, cursor.getBoolean("directory"), cursor.getString("author")));
+                        cursor.next();
+                    }
+                } finally {
+                    cursor.close();
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Records the listing of a directory in a revision, replacing a known
+     * one.
+     *
+     * @param url the URL of the browsed submission
+     * @param revision the browsed revision
+     * @param dir the path of the directory relative to <code>url</code>
+     * @param entries the entries
+     *
+     * @since 2.4
+     */
+    void putListing(String url, long revision, String dir, List<SubmissionDirEntry> entries) {
+        run(db -> {
+            delete(db, ELEMENTS[2], url, revision, dir);
+            ISqlJetTable table = db.getTable(ELEMENTS[2][1]);
+            for (SubmissionDirEntry entry : entries) {
+                table.insert(url, revision, dir, entry.getPath(), entry.isDirectory(), entry.getSize(),
+                    null == entry.getDate() ? null : entry.getDate().getTime(), entry.getAuthor());
+            }
+            db.getTable(ELEMENTS[2][0]).insert(url, revision, dir, System.currentTimeMillis());
+            return null;
+        });
+    }
+
+    /**
+     * Returns the recorded last use of the blobs of the {@link BlobStore}.
+     *
+     * @return the time of last use by MD5 checksum
+     *
+     * @since 2.4
+     */
+    @SuppressWarnings("unchecked")
+    Map<String, Long> getBlobUses() {
+        Map<String, Long> result = (Map<String, Long>) run(db -> {
+            Map<String, Long> uses = new HashMap<String, Long>();
+            ISqlJetCursor cursor = db.getTable(ELEMENTS[3][0]).open();
+            try {
+                while (!cursor.eof()) {
+                    uses.put(cursor.getString("checksum"), cursor.getInteger(USED));
+                    cursor.next();
+                }
+            } finally {
+                cursor.close();
+            }
+            return uses;
+        });
+        return null == result ? new HashMap<String, Long>() : result;
+    }
+
+    /**
+     * Records the last use of blobs and forgets deleted blobs.
+     *
+     * @param uses the time of last use by MD5 checksum
+     * @param deleted the MD5 checksums of the deleted blobs
+     *
+     * @since 2.4
+     */
+    void putBlobUses(Map<String, Long> uses, Collection<String> deleted) {
+        run(db -> {
+            ISqlJetTable table = db.getTable(ELEMENTS[3][0]);
+            for (Map.Entry<String, Long> entry : uses.entrySet()) {
+                table.insertOr(SqlJetConflictAction.REPLACE, entry.getKey(), entry.getValue());
+            }
+            for (String checksum : deleted) {
+                delete(db, ELEMENTS[3], checksum);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Closes the database, e.g., when the plug-in is stopped.
+     *
+     * @since 2.4
+     */
+    static synchronized void shutdown() {
+        if (null != instance) {
+            synchronized (instance) {
+                try {
+                    if (null != instance.db) {
+                        instance.db.close();
+                    }
+                } catch (SqlJetException e) {
+                    // closing a cache, nothing to be done
+                }
+                instance.db = null;
+            }
+            instance = null;
+        }
+    }
+
+}
@@ -0,0 +1,268 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.tmatesoft.svn.core.SVNDepth;
+import org.tmatesoft.svn.core.SVNDirEntry;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNNodeKind;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.ReplayOptions;
+
+/**
+ * Exports large submissions over multiple sessions concurrently. The
+ * top-level elements of the submission are distributed by their size over
+ * the sessions and each session exports its elements into the staging
+ * directory of a {@link ExportEditor#fork() forked} export editor, i.e., the
+ * export is limited by the bandwidth rather than by the latency of a single
+ * session. Parallel exports are used for submissions exceeding
+ * <code>replay.parallel.threshold</code> (in MB) with up to
+ * <code>replay.parallel.sessions</code> sessions.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class ParallelExport {
+
+    /**
+     * Stores the configuration key of the minimum submission size in MB.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_THRESHOLD = "replay.parallel.threshold";
+
+    /**
+     * Stores the configuration key of the maximum number of sessions.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_SESSIONS = "replay.parallel.sessions";
+
+    /**
+     * Stores the default minimum submission size in MB.
+     *
+     * @since 2.4
+     */
+    private static final int DEFAULT_THRESHOLD = 64;
+
+    /**
+     * Stores the default maximum number of sessions.
+     *
+     * @since 2.4
+     */
+    private static final int DEFAULT_SESSIONS = 4;
+
+    /**
+     * Prevents this utility class from being instantiated.
+     *
+     * @since 2.4
+     */
+    private ParallelExport() {
+    }
+
+    /**
+     * Sums up the file sizes of a recursive listing per top-level element.
+     *
+     * @param contents the recursive listing of a submission (relative paths)
+     * @return the names of the top-level elements mapped to their size in
+     *         bytes
+     *
+     * @since 2.4
+     */
+    static Map<String, Long> getSubtreeSizes(Collection<SVNDirEntry> contents) {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (SVNDirEntry entry : contents) {
+            String path = entry.getRelativePath();
+            while (path.startsWith("/")) {
+                path = path.substring(1);
+            }
+            int pos = path.indexOf('/');
+            String name = pos < 0 ? path : path.substring(0, pos);
+            long size = SVNNodeKind.FILE == entry.getKind() ? entry.getSize() : 0;
+            if (name.length() > 0) {
+                result.merge(name, size, Long::sum);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Distributes the top-level elements to be exported over the sessions.
+     *
+     * @param sizes the names of the top-level elements mapped to their size,
+     *        may be <b>null</b> if unknown
+     * @param options the elements to be exported
+     * @return the names of the elements per session, empty if a parallel
+     *         export is not worth the additional sessions
+     *
+     * @since 2.4
+     */
+    static List<List<String>> partition(Map<String, Long> sizes, ReplayOptions options) {
+        List<List<String>> result = new ArrayList<List<String>>();
+        int sessions = getConfiguredValue(CONFIG_SESSIONS, DEFAULT_SESSIONS);
+        long threshold = (long) getConfiguredValue(CONFIG_THRESHOLD, DEFAULT_THRESHOLD) * 1024 * 1024;
+        List<Map.Entry<String, Long>> elements = new ArrayList<Map.Entry<String, Long>>();
+        long total = 0;
+        if (null != sizes && SVNDepth.INFINITY == ReplayReporter.toDepth(options)) {
+            for (Map.Entry<String, Long> entry : sizes.entrySet()) {
+                if (options.accepts(entry.getKey(), true)) {
+                    elements.add(entry);
+                    total += entry.getValue();
+                }
+            }
+        }
+        sessions = Math.min(sessions, elements.size());
+        if (sessions > 1 && total >= threshold) {
+            // largest first, each to the session with the least bytes so far
+            elements.sort((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()));
+            long[] load = new long[sessions];
+            for (int i = 0; i < sessions; i++) {
+                result.add(new ArrayList<String>());
+            }
+            for (Map.Entry<String, Long> entry : elements) {
+                int min = 0;
+                for (int i = 1; i < sessions; i++) {
+                    if (load[i] < load[min]) {
+                        min = i;
+                    }
+                }
+                result.get(min).add(entry.getKey());
+                load[min] += entry.getValue();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a numerical configuration value.
+     *
+     * @param key the configuration key
+     * @param deflt the default value
+     * @return the configured value or <code>deflt</code> if not configured
+     *         or invalid
+     *
+     * @since 2.4
+     */
+    private static int getConfiguredValue(String key, int deflt) {
+        int result;
+        try {
+            result = Integer.parseInt(IConfiguration.INSTANCE.getProperty(key, String.valueOf(deflt)).trim());
+        } catch (NumberFormatException e) {
+            result = deflt;
+        }
+        return result;
+    }
+
+    /**
+     * Exports the given top-level elements concurrently. The elements are
+     * staged by <code>editor</code> as in a single edit, including the
+     * closing of the edit.
+     *
+     * @param url the URL of the submission
+     * @param revision the revision to be exported
+     * @param groups the names of the top-level elements per session (see
+     *        {@link #partition(Map, ReplayOptions)})
+     * @param editor the export editor
+     * @param authManager the authentication manager for the sessions
+     * @throws SVNException in the case of (communication) errors
+     *
+     * @since 2.4
+     */
+    static void export(final SVNURL url, final long revision, List<List<String>> groups, ExportEditor editor,
+        ISVNAuthenticationManager authManager) throws SVNException {
+        editor.targetRevision(revision);
+        editor.openRoot(revision);
+        List<SVNRepository> sessions = new ArrayList<SVNRepository>();
+        ExecutorService executor = Executors.newFixedThreadPool(groups.size());
+        try {
+            List<Future<ExportEditor>> futures = new ArrayList<Future<ExportEditor>>();
+            for (final List<String> group : groups) {
+                final ExportEditor fork = editor.fork();
+                final SVNRepository session = SVNRepositoryFactory.create(url);
+                session.setAuthenticationManager(authManager);
+                sessions.add(session);
+                futures.add(executor.submit(() -> export(session, revision, group, fork)));
+            }
+            join(futures, editor);
+        } finally {
+            executor.shutdownNow();
+            for (SVNRepository session : sessions) {
+                session.closeSession();
+            }
+        }
+        editor.closeEdit();
+    }
+
+    /**
+     * Exports top-level elements sequentially on one session.
+     *
+     * @param repository the session
+     * @param revision the revision to be exported
+     * @param names the names of the top-level elements
+     * @param fork the forked editor
+     * @return <code>fork</code>
+     * @throws SVNException in the case of (communication) errors
+     *
+     * @since 2.4
+     */
+    private static ExportEditor export(SVNRepository repository, long revision, List<String> names,
+        ExportEditor fork) throws SVNException {
+        for (String name : names) {
+            // the update target is reported as missing, i.e., it is sent entirely
+            repository.update(revision, name, SVNDepth.INFINITY, false, new ReplayReporter(revision, true,
+                SVNDepth.INFINITY, Collections.<String>emptyList(), Collections.singleton("")), fork);
+        }
+        return fork;
+    }
+
+    /**
+     * Waits for all sessions and merges their results into
+     * <code>editor</code>.
+     *
+     * @param futures the pending results of the sessions
+     * @param editor the editor to merge the results into
+     * @throws SVNException the first exception of a session or if waiting is
+     *         interrupted
+     *
+     * @since 2.4
+     */
+    private static void join(List<Future<ExportEditor>> futures, ExportEditor editor) throws SVNException {
+        SVNException failure = null;
+        for (Future<ExportEditor> future : futures) {
+            try {
+                editor.merge(future.get());
+            } catch (ExecutionException e) {
+                if (null == failure) {
+                    failure = e.getCause() instanceof SVNException ? (SVNException) e.getCause()
+                        : new SVNException(SVNErrorMessage.create(SVNErrorCode.UNKNOWN, e.getCause()), e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (null == failure) {
+                    failure = new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED,
+                        "error: export interrupted"), e);
+                }
+            }
+        }
+        if (null != failure) {
+            throw failure;
+        }
+    }
+
+}
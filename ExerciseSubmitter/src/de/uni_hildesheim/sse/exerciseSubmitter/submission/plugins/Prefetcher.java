@@ -0,0 +1,189 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.tmatesoft.svn.core.SVNDirEntry;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNNodeKind;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.Activator;
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.CommunicationException;
+import net.ssehub.exercisesubmitter.protocol.frontend.Assignment;
+import net.ssehub.exercisesubmitter.protocol.frontend.SubmissionTarget;
+
+/**
+ * Prefetches the submissions a reviewer will probably replay next into the
+ * {@link BlobStore}. Reviewers go through the submissions of an assignment in
+ * the order of the submission directories, i.e., after replaying one
+ * submission, the next <code>review.prefetch</code> submissions (default 3,
+ * <code>0</code> disables prefetching) are exported quietly in the
+ * background. Replaying a prefetched submission then materializes it from the
+ * store. A new prefetch cancels the running one as the reviewer moved on.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class Prefetcher extends Job {
+
+    /**
+     * Stores the configuration key of the number of submissions to prefetch.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_PREFETCH = "review.prefetch";
+
+    /**
+     * Stores the default number of submissions to prefetch.
+     *
+     * @since 2.4
+     */
+    private static final int DEFAULT_PREFETCH = 3;
+
+    /**
+     * Stores the running prefetcher, <b>null</b> if there is none.
+     *
+     * @since 2.4
+     */
+    private static Prefetcher running;
+
+    /**
+     * Stores the communication instance to prefetch with.
+     *
+     * @since 2.4
+     */
+    private SvnSubmissionCommunication comm;
+
+    /**
+     * Stores the assignment being reviewed.
+     *
+     * @since 2.4
+     */
+    private Assignment assignment;
+
+    /**
+     * Stores the submission replayed last.
+     *
+     * @since 2.4
+     */
+    private SubmissionTarget current;
+
+    /**
+     * Stores the number of submissions to prefetch.
+     *
+     * @since 2.4
+     */
+    private int count;
+
+    /**
+     * Creates a new prefetcher.
+     *
+     * @param comm the communication instance to prefetch with
+     * @param assignment the assignment being reviewed
+     * @param current the submission replayed last
+     * @param count the number of submissions to prefetch
+     *
+     * @since 2.4
+     */
+    private Prefetcher(SvnSubmissionCommunication comm, Assignment assignment, SubmissionTarget current, int count) {
+        super("Prefetching submissions");
+        this.comm = comm;
+        this.assignment = assignment;
+        this.current = current;
+        this.count = count;
+        setSystem(true);
+        setPriority(Job.DECORATE);
+    }
+
+    /**
+     * Schedules prefetching the submissions following <code>current</code>
+     * and cancels a running prefetch.
+     *
+     * @param comm the communication instance to prefetch with
+     * @param assignment the assignment being reviewed
+     * @param current the submission replayed last
+     *
+     * @since 2.4
+     */
+    static synchronized void schedule(SvnSubmissionCommunication comm, Assignment assignment,
+        SubmissionTarget current) {
+        int count;
+        try {
+            count = Integer.parseInt(IConfiguration.INSTANCE.getProperty(CONFIG_PREFETCH,
+                String.valueOf(DEFAULT_PREFETCH)).trim());
+        } catch (NumberFormatException e) {
+            count = DEFAULT_PREFETCH;
+        }
+        if (null != running) {
+            running.cancel();
+            running = null;
+        }
+        if (count > 0) {
+            running = new Prefetcher(comm, assignment, current, count);
+            running.schedule();
+        }
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+        try {
+            String url = current.getAllSubmissionsURL();
+            SVNRepository repository = comm.createSession(url);
+            try {
+                // the last changed revision identifies the contents of a submission
+                List<SVNDirEntry> next = getNext(repository.getDir("", -1, null,
+                    SVNDirEntry.DIRENT_KIND | SVNDirEntry.DIRENT_CREATED_REVISION, (Collection<?>) null));
+                for (int i = 0; !monitor.isCanceled() && i < next.size(); i++) {
+                    SVNDirEntry entry = next.get(i);
+                    String submissionURL = comm.getPathToSubmission(assignment, entry.getName()).getSubmissionURL();
+                    comm.prefetch(submissionURL, entry.getRevision());
+                }
+            } finally {
+                repository.closeSession();
+            }
+        } catch (SVNException | CommunicationException e) {
+            // just an optimization, the replay will fetch the submission
+            if (IConfiguration.INSTANCE.isDebuggingEnabled()) {
+                Activator.log("ExerciseSubmitter: prefetching failed", e);
+            }
+        }
+        return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+    }
+
+    /**
+     * Returns the submission directories following the current submission in
+     * the order of their names.
+     *
+     * @param entries the entries of the directory containing all submissions
+     * @return the next (up to {@link #count}) submission directories
+     *
+     * @since 2.4
+     */
+    private List<SVNDirEntry> getNext(Collection<SVNDirEntry> entries) {
+        List<SVNDirEntry> dirs = new ArrayList<SVNDirEntry>();
+        for (SVNDirEntry entry : entries) {
+            if (SVNNodeKind.DIR == entry.getKind()) {
+                dirs.add(entry);
+            }
+        }
+        dirs.sort((e1, e2) -> e1.getName().compareTo(e2.getName()));
+        String currentURL = current.getSubmissionURL().replaceAll("/+$", "");
+        int pos = 0;
+        while (pos < dirs.size() && !currentURL.endsWith("/" + dirs.get(pos).getName())) {
+            pos++;
+        }
+        List<SVNDirEntry> result = new ArrayList<SVNDirEntry>();
+        for (int i = pos + 1; i < dirs.size() && result.size() < count; i++) {
+            result.add(dirs.get(i));
+        }
+        return result;
+    }
+
+}
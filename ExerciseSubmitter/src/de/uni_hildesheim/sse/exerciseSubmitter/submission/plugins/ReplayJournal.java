@@ -0,0 +1,168 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.Activator;
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.ReplayOptions;
+
+/**
+ * Records the progress of an entire-task replay in its target directory,
+ * i.e., which submission directories were completely replayed at which
+ * revision. A replay of the same task with the same options which was
+ * interrupted, e.g., by a lost connection, resumes at the first submission
+ * not recorded. The journal is written after each submission and deleted
+ * when a replay completes without failures.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class ReplayJournal {
+
+    /**
+     * Stores the name of the journal file in the target directory.
+     *
+     * @since 2.4
+     */
+    static final String FILE_NAME = ".replay-journal";
+
+    /**
+     * Stores the key of the URL of all submissions.
+     *
+     * @since 2.4
+     */
+    private static final String KEY_URL = "url";
+
+    /**
+     * Stores the key of the replay options.
+     *
+     * @since 2.4
+     */
+    private static final String KEY_OPTIONS = "options";
+
+    /**
+     * Stores the prefix of the keys denoting replayed submissions.
+     *
+     * @since 2.4
+     */
+    private static final String PREFIX_DONE = "done.";
+
+    /**
+     * Stores the journal file.
+     *
+     * @since 2.4
+     */
+    private File file;
+
+    /**
+     * Stores the contents of the journal.
+     *
+     * @since 2.4
+     */
+    private Properties data;
+
+    /**
+     * Creates a journal.
+     *
+     * @param file the journal file
+     * @param data the contents of the journal
+     *
+     * @since 2.4
+     */
+    private ReplayJournal(File file, Properties data) {
+        this.file = file;
+        this.data = data;
+    }
+
+    /**
+     * Opens the journal of a target directory. A journal of another task or
+     * of other replay options is discarded.
+     *
+     * @param directory the target directory of the replay
+     * @param url the URL of all submissions of the task
+     * @param options the elements to be replayed
+     * @return the journal
+     *
+     * @since 2.4
+     */
+    static ReplayJournal open(File directory, String url, ReplayOptions options) {
+        File file = new File(directory, FILE_NAME);
+        Properties data = new Properties();
+        if (file.isFile()) {
+            try (InputStream in = new FileInputStream(file)) {
+                data.load(in);
+            } catch (IOException e) {
+                data.clear();
+            }
+        }
+        if (!url.equals(data.getProperty(KEY_URL)) || !options.toString().equals(data.getProperty(KEY_OPTIONS))) {
+            data.clear();
+            data.setProperty(KEY_URL, url);
+            data.setProperty(KEY_OPTIONS, options.toString());
+        }
+        return new ReplayJournal(file, data);
+    }
+
+    /**
+     * Returns whether a submission was completely replayed in the given
+     * revision.
+     *
+     * @param name the name of the submission directory
+     * @param revision the revision to be replayed
+     * @return <code>true</code> if the submission is replayed,
+     *         <code>false</code> if it must be (re-)replayed
+     *
+     * @since 2.4
+     */
+    synchronized boolean isDone(String name, long revision) {
+        return String.valueOf(revision).equals(data.getProperty(PREFIX_DONE + name));
+    }
+
+    /**
+     * Records that a submission was completely replayed and writes the
+     * journal.
+     *
+     * @param name the name of the submission directory
+     * @param revision the replayed revision
+     *
+     * @since 2.4
+     */
+    synchronized void done(String name, long revision) {
+        data.setProperty(PREFIX_DONE + name, String.valueOf(revision));
+        try {
+            File tmp = File.createTempFile(FILE_NAME, ".tmp", file.getParentFile());
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                data.store(out, "replayed submissions");
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                tmp.delete();
+            }
+        } catch (IOException e) {
+            // a lost journal just causes a complete replay next time
+            if (IConfiguration.INSTANCE.isDebuggingEnabled()) {
+                Activator.log("ExerciseSubmitter: cannot write " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Deletes the journal as the replay is complete.
+     *
+     * @since 2.4
+     */
+    synchronized void delete() {
+        file.delete();
+    }
+
+}
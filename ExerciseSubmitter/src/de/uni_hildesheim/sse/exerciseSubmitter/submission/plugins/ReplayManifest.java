@@ -0,0 +1,395 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+
+/**
+ * Remembers which revision of which repository URL a local directory
+ * matches after a replay, including the MD5 checksums of the replayed files.
+ * This enables updating the directory by the deltas to another revision
+ * instead of exporting the entire revision again. Manifests are stored in
+ * the {@link IConfiguration#getCacheDirectory() cache directory}, i.e., not
+ * in the (submitted) directory itself. Files rewritten after the replay, e.g.,
+ * the adjusted Eclipse project file, are recorded with their adjusted
+ * checksum and restored from the {@link BlobStore} before the next update,
+ * i.e., they are not transferred again unless they changed on the server.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class ReplayManifest {
+
+    /**
+     * Stores the name of the sub directory of the cache directory holding
+     * the manifests.
+     *
+     * @since 2.4
+     */
+    private static final String MANIFEST_DIR = "replay";
+
+    /**
+     * Stores the key of the repository URL.
+     *
+     * @since 2.4
+     */
+    private static final String KEY_URL = "url";
+
+    /**
+     * Stores the key of the revision.
+     *
+     * @since 2.4
+     */
+    private static final String KEY_REVISION = "revision";
+
+    /**
+     * Stores the key of the local directory.
+     *
+     * @since 2.4
+     */
+    private static final String KEY_DIRECTORY = "directory";
+
+    /**
+     * Stores the key of the replay options.
+     *
+     * @since 2.4
+     */
+    private static final String KEY_OPTIONS = "options";
+
+    /**
+     * Stores the prefix of the keys denoting entries.
+     *
+     * @since 2.4
+     */
+    private static final String PREFIX_ENTRY = "entry.";
+
+    /**
+     * Stores the prefix of the keys denoting adjusted files.
+     *
+     * @since 2.4
+     */
+    private static final String PREFIX_ADJUSTED = "adjusted.";
+
+    /**
+     * Stores the local directory described by this manifest.
+     *
+     * @since 2.4
+     */
+    private File directory;
+
+    /**
+     * Stores the URL the directory was replayed from.
+     *
+     * @since 2.4
+     */
+    private String url;
+
+    /**
+     * Stores the revision the directory matches.
+     *
+     * @since 2.4
+     */
+    private long revision;
+
+    /**
+     * Stores the textual representation of the replay options, i.e., which
+     * parts of the revision were replayed.
+     *
+     * @since 2.4
+     */
+    private String options;
+
+    /**
+     * Stores the relative paths of all replayed elements mapped to their
+     * MD5 checksum or {@link ExportEditor#DIRECTORY}.
+     *
+     * @since 2.4
+     */
+    private Map<String, String> entries;
+
+    /**
+     * Stores the relative paths of the files adjusted after the replay mapped
+     * to their adjusted MD5 checksum.
+     *
+     * @since 2.4
+     */
+    private Map<String, String> adjusted = new TreeMap<String, String>();
+
+    /**
+     * Creates a new manifest.
+     *
+     * @param directory the local directory
+     * @param url the URL the directory was replayed from
+     * @param revision the revision the directory matches
+     * @param options the textual representation of the replay options
+     * @param entries the relative paths of all replayed elements mapped to
+     *        their MD5 checksum or {@link ExportEditor#DIRECTORY}
+     *
+     * @since 2.4
+     */
+    ReplayManifest(File directory, String url, long revision, String options, Map<String, String> entries) {
+        this.directory = directory.getAbsoluteFile();
+        this.url = url;
+        this.revision = revision;
+        this.options = options;
+        this.entries = new TreeMap<String, String>(entries);
+    }
+
+    /**
+     * Returns the URL the directory was replayed from.
+     *
+     * @return the URL
+     *
+     * @since 2.4
+     */
+    String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns the revision the directory matches.
+     *
+     * @return the revision
+     *
+     * @since 2.4
+     */
+    long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Returns the textual representation of the replay options the directory
+     * was replayed with.
+     *
+     * @return the replay options
+     *
+     * @since 2.4
+     */
+    String getOptions() {
+        return options;
+    }
+
+    /**
+     * Returns the replayed elements.
+     *
+     * @return the relative paths of all replayed elements mapped to their
+     *         MD5 checksum or {@link ExportEditor#DIRECTORY}
+     *
+     * @since 2.4
+     */
+    Map<String, String> getEntries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Returns the replayed elements which were modified or deleted locally
+     * since the replay. Elements below a returned directory are not
+     * returned. Adjusted files not modified since their adjustment are
+     * restored to their replayed contents.
+     *
+     * @return the relative paths of the modified elements
+     *
+     * @throws SVNException in case that a local file cannot be read
+     *
+     * @since 2.4
+     */
+    List<String> getLocallyModified() throws SVNException {
+        List<String> result = new ArrayList<String>();
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            String path = entry.getKey();
+            File file = new File(directory, path);
+            boolean modified;
+            if (ExportEditor.DIRECTORY.equals(entry.getValue())) {
+                modified = !file.isDirectory();
+            } else {
+                modified = !file.isFile() || !isReplayed(path, entry.getValue(), file);
+            }
+            if (modified && !isBelow(path, result)) {
+                result.add(path);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether a file has its replayed contents. An adjusted file not
+     * modified since its adjustment is restored from the {@link BlobStore}.
+     *
+     * @param path the relative path of the file
+     * @param checksum the replayed MD5 checksum of the file
+     * @param file the file
+     * @return <code>true</code> if the file has its replayed contents,
+     *         <code>false</code> else
+     * @throws SVNException in case that the file cannot be read
+     *
+     * @since 2.4
+     */
+    private boolean isReplayed(String path, String checksum, File file) throws SVNException {
+        String actual = SVNFileUtil.computeChecksum(file);
+        boolean result = checksum.equals(actual);
+        if (!result && actual.equals(adjusted.get(path))) {
+            try {
+                result = BlobStore.getInstance().copyTo(checksum, file);
+            } catch (IOException e) {
+                result = false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether <code>path</code> is located below one of the given
+     * directories.
+     *
+     * @param path the relative path to be tested
+     * @param dirs the relative paths of the directories
+     * @return <code>true</code> if <code>path</code> is below one of
+     *         <code>dirs</code>, <code>false</code> else
+     *
+     * @since 2.4
+     */
+    private static boolean isBelow(String path, List<String> dirs) {
+        boolean below = false;
+        for (int i = 0; !below && i < dirs.size(); i++) {
+            below = path.startsWith(dirs.get(i) + "/");
+        }
+        return below;
+    }
+
+    /**
+     * Stores this manifest in the cache directory. Errors are ignored as
+     * the manifest is just an optimization.
+     *
+     * @since 2.4
+     */
+    void store() {
+        Properties prop = new Properties();
+        prop.setProperty(KEY_DIRECTORY, directory.getPath());
+        prop.setProperty(KEY_URL, url);
+        prop.setProperty(KEY_REVISION, String.valueOf(revision));
+        prop.setProperty(KEY_OPTIONS, options);
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            prop.setProperty(PREFIX_ENTRY + entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : adjusted.entrySet()) {
+            prop.setProperty(PREFIX_ADJUSTED + entry.getKey(), entry.getValue());
+        }
+        File file = getManifestFile(directory);
+        file.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(file)) {
+            prop.store(out, null);
+        } catch (IOException e) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Loads the manifest of the given local directory.
+     *
+     * @param directory the local directory
+     * @return the manifest or <b>null</b> if there is no (valid) manifest
+     *         for <code>directory</code>
+     *
+     * @since 2.4
+     */
+    static ReplayManifest load(File directory) {
+        ReplayManifest result = null;
+        File dir = directory.getAbsoluteFile();
+        File file = getManifestFile(dir);
+        if (file.isFile()) {
+            Properties prop = new Properties();
+            try (InputStream in = new FileInputStream(file)) {
+                prop.load(in);
+                String url = prop.getProperty(KEY_URL);
+                long revision = Long.parseLong(prop.getProperty(KEY_REVISION, "-1"));
+                if (dir.getPath().equals(prop.getProperty(KEY_DIRECTORY)) && null != url && revision >= 0) {
+                    Map<String, String> entries = new TreeMap<String, String>();
+                    for (String key : prop.stringPropertyNames()) {
+                        if (key.startsWith(PREFIX_ENTRY)) {
+                            entries.put(key.substring(PREFIX_ENTRY.length()), prop.getProperty(key));
+                        }
+                    }
+                    result = new ReplayManifest(dir, url, revision, prop.getProperty(KEY_OPTIONS, ""), entries);
+                    for (String key : prop.stringPropertyNames()) {
+                        if (key.startsWith(PREFIX_ADJUSTED)) {
+                            result.adjusted.put(key.substring(PREFIX_ADJUSTED.length()), prop.getProperty(key));
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                result = null;
+            } catch (NumberFormatException e) {
+                result = null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Records a file of a replayed directory as adjusted after the replay,
+     * i.e., its current contents are not considered as a local
+     * modification. Does nothing if the directory has no manifest or the
+     * file was not replayed.
+     *
+     * @param directory the replayed directory
+     * @param path the relative path of the adjusted file
+     *
+     * @since 2.4
+     */
+    static void recordAdjusted(File directory, String path) {
+        ReplayManifest manifest = load(directory);
+        String checksum = null == manifest ? null : manifest.entries.get(path);
+        File file = new File(directory, path);
+        if (null != checksum && !ExportEditor.DIRECTORY.equals(checksum) && file.isFile()) {
+            try {
+                String actual = SVNFileUtil.computeChecksum(file);
+                if (!checksum.equals(actual)) {
+                    manifest.adjusted.put(path, actual);
+                    manifest.store();
+                }
+            } catch (SVNException e) {
+                // considered as locally modified
+            }
+        }
+    }
+
+    /**
+     * Deletes the manifest of the given local directory, e.g., if the
+     * directory was changed without using a manifest.
+     *
+     * @param directory the local directory
+     *
+     * @since 2.4
+     */
+    static void delete(File directory) {
+        getManifestFile(directory.getAbsoluteFile()).delete();
+    }
+
+    /**
+     * Returns the file storing the manifest of the given local directory.
+     *
+     * @param directory the (absolute) local directory
+     * @return the manifest file
+     *
+     * @since 2.4
+     */
+    private static File getManifestFile(File directory) {
+        String name = SVNFileUtil.computeChecksum(directory.getPath());
+        return new File(new File(IConfiguration.INSTANCE.getCacheDirectory(), MANIFEST_DIR), name + ".properties");
+    }
+
+}
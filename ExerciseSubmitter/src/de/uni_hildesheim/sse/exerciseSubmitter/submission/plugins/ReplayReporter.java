@@ -0,0 +1,162 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.tmatesoft.svn.core.SVNDepth;
+import org.tmatesoft.svn.core.SVNDirEntry;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNNodeKind;
+import org.tmatesoft.svn.core.io.ISVNReporter;
+import org.tmatesoft.svn.core.io.ISVNReporterBaton;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.ReplayOptions;
+
+/**
+ * Describes the local state of a replayed directory to the server, i.e.,
+ * determines what the server sends. Elements excluded by the
+ * {@link ReplayOptions} are reported as excluded so that the server does not
+ * send them at all.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class ReplayReporter implements ISVNReporterBaton {
+
+    /**
+     * Stores the revision the directory matches.
+     *
+     * @since 2.4
+     */
+    private long revision;
+
+    /**
+     * Stores whether the directory is empty.
+     *
+     * @since 2.4
+     */
+    private boolean startEmpty;
+
+    /**
+     * Stores the depth of the directory.
+     *
+     * @since 2.4
+     */
+    private SVNDepth depth;
+
+    /**
+     * Stores the paths the server shall not send.
+     *
+     * @since 2.4
+     */
+    private Collection<String> excluded;
+
+    /**
+     * Stores the paths missing locally.
+     *
+     * @since 2.4
+     */
+    private Collection<String> deleted;
+
+    /**
+     * Creates a new reporter.
+     *
+     * @param revision the revision the directory matches
+     * @param startEmpty <code>true</code> if the directory is empty, i.e.,
+     *        everything shall be sent, <code>false</code> if it matches
+     *        <code>revision</code>
+     * @param depth the depth of the directory
+     * @param excluded the paths the server shall not send (relative to the
+     *        replayed location)
+     * @param deleted the paths missing locally, i.e., to be sent entirely
+     *
+     * @since 2.4
+     */
+    ReplayReporter(long revision, boolean startEmpty, SVNDepth depth, Collection<String> excluded,
+        Collection<String> deleted) {
+        this.revision = revision;
+        this.startEmpty = startEmpty;
+        this.depth = depth;
+        this.excluded = excluded;
+        this.deleted = deleted;
+    }
+
+    @Override
+    public void report(ISVNReporter reporter) throws SVNException {
+        reporter.setPath("", null, revision, depth, startEmpty);
+        for (String path : excluded) {
+            reporter.setPath(path, null, revision, SVNDepth.EXCLUDE, false);
+        }
+        for (String path : deleted) {
+            // transferred as added files / directories
+            reporter.deletePath(path);
+        }
+        reporter.finishReport();
+    }
+
+    /**
+     * Maps the depth of replay options to the depth requested from the
+     * server. Depths beyond the top-level elements cannot be requested and
+     * are realized by the {@link ExportEditor}.
+     *
+     * @param options the replay options
+     * @return the depth to be requested
+     *
+     * @since 2.4
+     */
+    static SVNDepth toDepth(ReplayOptions options) {
+        SVNDepth result;
+        switch (options.getDepth()) {
+        case 0:
+            result = SVNDepth.EMPTY;
+            break;
+        case 1:
+            result = SVNDepth.IMMEDIATES;
+            break;
+        default:
+            result = SVNDepth.INFINITY;
+            break;
+        }
+        return result;
+    }
+
+    /**
+     * Determines the paths the server shall not send at all. These are the
+     * top-level elements matching an exclude pattern without wildcards and,
+     * if there are include patterns, the top-level elements which cannot
+     * contain included elements. Nested elements cannot be excluded as their
+     * parent directories are not reported, i.e., they are filtered by the
+     * {@link ExportEditor}.
+     *
+     * @param repository the repository to be replayed from
+     * @param revision the revision to be replayed
+     * @param options the replay options
+     * @return the paths to be excluded, relative to the location of
+     *         <code>repository</code>
+     * @throws SVNException in the case of (communication) errors
+     *
+     * @since 2.4
+     */
+    static List<String> getExcludedPaths(SVNRepository repository, long revision, ReplayOptions options)
+        throws SVNException {
+        List<String> result = new ArrayList<String>();
+        for (String exclude : options.getExcludes()) {
+            if (exclude.indexOf('*') < 0 && exclude.indexOf('?') < 0 && exclude.indexOf('/') < 0) {
+                result.add(exclude);
+            }
+        }
+        if (!options.getIncludes().isEmpty()) {
+            Collection<SVNDirEntry> entries = repository.getDir("", revision, null, SVNDirEntry.DIRENT_KIND,
+                (Collection<?>) null);
+            for (SVNDirEntry entry : entries) {
+                if (!options.accepts(entry.getName(), SVNNodeKind.DIR == entry.getKind())) {
+                    result.add(entry.getName());
+                }
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,392 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.tmatesoft.svn.core.SVNCancelException;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepositoryFactory;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.wc.ISVNEventHandler;
+import org.tmatesoft.svn.core.wc.SVNEvent;
+import org.tmatesoft.svn.core.wc.SVNWCUtil;
+import org.tmatesoft.svn.core.wc.admin.SVNAdminClient;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.Activator;
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.CommonStuff;
+
+/**
+ * Maintains a local read-only mirror of the repository for reviewers (see
+ * <code>review.mirror</code>, disabled by default). The mirror is a local
+ * repository in the cache directory which is synchronized with
+ * <code>svn.server</code> like <code>svnsync</code> does, i.e., only new
+ * revisions are transferred, with the same revision numbers. Synchronizing
+ * runs in the background periodically (see
+ * <code>review.mirror.interval</code>) and whenever the server is observed
+ * to be ahead of the mirror. As long as the mirror is current, read-only operations are routed to it through a
+ * <code>file://</code> URL (see {@link #route(String, long)}) while
+ * submissions always go to the server.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class RepositoryMirror extends Job {
+
+    /**
+     * Stores the configuration key enabling the mirror.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_MIRROR = "review.mirror";
+
+    /**
+     * Stores the configuration key of the interval between two
+     * synchronizations in seconds.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_INTERVAL = "review.mirror.interval";
+
+    /**
+     * Stores the name of the mirror directory in the cache directory.
+     *
+     * @since 2.4
+     */
+    private static final String MIRROR_DIR = "mirror";
+
+    /**
+     * Stores the default interval between two synchronizations in seconds.
+     *
+     * @since 2.4
+     */
+    private static final int DEFAULT_INTERVAL = 60;
+
+    /**
+     * Stores the running mirror, <b>null</b> if there is none.
+     *
+     * @since 2.4
+     */
+    private static RepositoryMirror instance;
+
+    /**
+     * Stores the mirrored server URL (without trailing <code>/</code>).
+     *
+     * @since 2.4
+     */
+    private String server;
+
+    /**
+     * Stores the authentication manager for the server.
+     *
+     * @since 2.4
+     */
+    private ISVNAuthenticationManager authManager;
+
+    /**
+     * Stores the directory of the local repository.
+     *
+     * @since 2.4
+     */
+    private File directory;
+
+    /**
+     * Stores the URL of {@link #server} in the local repository (without
+     * trailing <code>/</code>), <b>null</b> until the first synchronization.
+     *
+     * @since 2.4
+     */
+    private volatile String localURL;
+
+    /**
+     * Stores the latest revision of the local repository.
+     *
+     * @since 2.4
+     */
+    private volatile long mirrored = -1;
+
+    /**
+     * Stores the latest revision of the server observed so far.
+     *
+     * @since 2.4
+     */
+    private volatile long observed = -1;
+
+    /**
+     * Stores whether synchronizing failed, e.g., as the user may not read the
+     * entire repository. The mirror is not used any more in this case.
+     *
+     * @since 2.4
+     */
+    private volatile boolean failed;
+
+    /**
+     * Stores the session on the local repository, created on demand.
+     *
+     * @since 2.4
+     */
+    private SVNRepository session;
+
+    /**
+     * Creates a new mirror.
+     *
+     * @param server the server URL to be mirrored
+     * @param authManager the authentication manager for the server
+     *
+     * @since 2.4
+     */
+    private RepositoryMirror(String server, ISVNAuthenticationManager authManager) {
+        super("Mirroring the repository");
+        this.server = server.replaceAll("/+$", "");
+        this.authManager = authManager;
+        File dir = new File(IConfiguration.INSTANCE.getCacheDirectory(), MIRROR_DIR);
+        this.directory = new File(dir, SVNFileUtil.computeChecksum(this.server));
+        setSystem(true);
+        setPriority(Job.DECORATE);
+    }
+
+    /**
+     * Starts mirroring a server if enabled. A mirror of another server is
+     * stopped.
+     *
+     * @param server the server URL to be mirrored
+     * @param authManager the authentication manager for the server
+     *
+     * @since 2.4
+     */
+    static synchronized void start(String server, ISVNAuthenticationManager authManager) {
+        if (null != instance && !instance.server.equals(server.replaceAll("/+$", ""))) {
+            stop();
+        }
+        if (null == instance && null != server
+            && Boolean.valueOf(IConfiguration.INSTANCE.getProperty(CONFIG_MIRROR, "false").trim())) {
+            instance = new RepositoryMirror(server, authManager);
+            instance.schedule();
+        }
+    }
+
+    /**
+     * Stops mirroring. The local repository is kept for the next start.
+     *
+     * @since 2.4
+     */
+    static synchronized void stop() {
+        if (null != instance) {
+            instance.cancel();
+            instance.closeSession();
+            instance = null;
+        }
+    }
+
+    /**
+     * Records a revision of the server observed by another operation, e.g.,
+     * a submission. Synchronizing is scheduled if the mirror is behind.
+     *
+     * @param revision the observed revision
+     *
+     * @since 2.4
+     */
+    static synchronized void observe(long revision) {
+        if (null != instance && !instance.failed && revision > instance.observed) {
+            instance.observed = revision;
+            if (instance.mirrored < revision) {
+                instance.schedule();
+            }
+        }
+    }
+
+    /**
+     * Returns the session on the mirror located at the mirrored server URL
+     * if the mirror is current with respect to the latest revision of the
+     * server known from the last synchronization or from
+     * {@link #observe(long)}. The server is not contacted. If the mirror is
+     * behind, synchronizing is scheduled.
+     *
+     * @return the session, not to be closed by the caller, <b>null</b> if
+     *         read-only operations must use the server
+     * @throws SVNException if the session cannot be created
+     *
+     * @since 2.4
+     */
+    static synchronized SVNRepository getCurrentSession() throws SVNException {
+        SVNRepository result = null;
+        if (null != instance && !instance.failed && null != instance.localURL) {
+            if (instance.mirrored >= instance.observed) {
+                if (null == instance.session) {
+                    instance.session = SVNRepositoryFactory.create(SVNURL.parseURIEncoded(instance.localURL));
+                }
+                result = instance.session;
+            } else {
+                instance.schedule();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Routes a read-only operation to the mirror if the mirror contains the
+     * requested revision.
+     *
+     * @param url the URL on the server
+     * @param revision the revision to be read, negative for the latest
+     *        revision
+     * @return the URL in the mirror or <code>url</code> if the operation must
+     *         use the server
+     *
+     * @since 2.4
+     */
+    static synchronized String route(String url, long revision) {
+        String result = url;
+        if (null != instance && !instance.failed && null != instance.localURL) {
+            long required = revision < 0 ? instance.observed : revision;
+            String base = instance.server;
+            if (required >= 0 && instance.mirrored >= required
+                && (url.equals(base) || url.startsWith(base + "/"))) {
+                result = instance.localURL + url.substring(base.length());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Closes the local session. Called with the class lock held.
+     *
+     * @since 2.4
+     */
+    private void closeSession() {
+        if (null != session) {
+            session.closeSession();
+            session = null;
+        }
+    }
+
+    @Override
+    protected IStatus run(final IProgressMonitor monitor) {
+        try {
+            FSRepositoryFactory.setup();
+            SVNAdminClient admin = new SVNAdminClient(authManager, SVNWCUtil.createDefaultOptions(true));
+            admin.setEventHandler(new ISVNEventHandler() {
+
+                @Override
+                public void handleEvent(SVNEvent event, double progress) throws SVNException {
+                }
+
+                @Override
+                public void checkCancelled() throws SVNCancelException {
+                    if (monitor.isCanceled()) {
+                        throw new SVNCancelException();
+                    }
+                }
+            });
+            SVNURL local = SVNURL.fromFile(directory);
+            if (!new File(directory, "format").isFile()) {
+                initialize(admin);
+            }
+            admin.doSynchronize(local);
+            SVNRepository mirror = SVNRepositoryFactory.create(local);
+            try {
+                mirrored = mirror.getLatestRevision();
+            } finally {
+                mirror.closeSession();
+            }
+            observe(mirrored);
+            if (null == localURL) {
+                localURL = local.toString() + getPathInRepository();
+            }
+            synchronized (RepositoryMirror.class) {
+                if (this == instance) {
+                    schedule(mirrored < observed ? 0 : getInterval());
+                }
+            }
+        } catch (SVNCancelException e) {
+            // stopped, continued with the next start
+        } catch (SVNException | IOException e) {
+            // just an optimization, read-only operations continue to use the server
+            failed = true;
+            if (IConfiguration.INSTANCE.isDebuggingEnabled()) {
+                Activator.log("ExerciseSubmitter: mirroring " + server + " failed", e);
+            }
+        }
+        return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+    }
+
+    /**
+     * Returns the interval between two synchronizations.
+     *
+     * @return the interval in milliseconds
+     *
+     * @since 2.4
+     */
+    private static long getInterval() {
+        int result;
+        try {
+            result = Integer.parseInt(IConfiguration.INSTANCE.getProperty(CONFIG_INTERVAL,
+                String.valueOf(DEFAULT_INTERVAL)).trim());
+        } catch (NumberFormatException e) {
+            result = DEFAULT_INTERVAL;
+        }
+        return Math.max(1, result) * 1000L;
+    }
+
+    /**
+     * Creates and initializes the local repository. An incomplete repository
+     * is removed.
+     *
+     * @param admin the administration client
+     * @throws SVNException if creating or initializing fails
+     * @throws IOException if the hook script cannot be written
+     *
+     * @since 2.4
+     */
+    private void initialize(SVNAdminClient admin) throws SVNException, IOException {
+        boolean done = false;
+        try {
+            SVNURL local = SVNRepositoryFactory.createLocalRepository(directory, true, true);
+            // synchronizing sets revision properties, i.e., the repository must accept their changes
+            File hook = new File(new File(directory, "hooks"), "pre-revprop-change"
+                + (SVNFileUtil.isWindows ? ".bat" : ""));
+            try (Writer out = new FileWriter(hook)) {
+                out.write(SVNFileUtil.isWindows ? "@exit 0\r\n" : "#!/bin/sh\nexit 0\n");
+            }
+            hook.setExecutable(true);
+            admin.doInitialize(SVNURL.parseURIEncoded(server), local);
+            done = true;
+        } finally {
+            if (!done) {
+                CommonStuff.rmdir(directory, true);
+            }
+        }
+    }
+
+    /**
+     * Returns the path of the mirrored server URL relative to the root of
+     * the repository. The mirror keeps the paths of the repository.
+     *
+     * @return the path (URI encoded, starting with <code>/</code> or empty)
+     * @throws SVNException in the case of communication errors
+     *
+     * @since 2.4
+     */
+    private String getPathInRepository() throws SVNException {
+        SVNURL url = SVNURL.parseURIEncoded(server);
+        SVNRepository remote = SVNRepositoryFactory.create(url);
+        remote.setAuthenticationManager(authManager);
+        try {
+            String root = remote.getRepositoryRoot(true).getURIEncodedPath();
+            return url.getURIEncodedPath().substring(root.length());
+        } finally {
+            remote.closeSession();
+        }
+    }
+
+}
@@ -0,0 +1,239 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.tmatesoft.svn.core.SVNDirEntry;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNNodeKind;
+import org.tmatesoft.svn.core.SVNProperties;
+import org.tmatesoft.svn.core.SVNProperty;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.CommunicationException;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.ISubmissionBrowser;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.SubmissionDirEntry;
+
+/**
+ * Browses a revision of a submission on a single session, read from the
+ * {@link RepositoryMirror} if available. The session is closed with the
+ * browser, at the latest when the creating communication instance is
+ * cleaned up. Directory listings are kept in
+ * memory and in the {@link MetadataStore} as a revision does not change. File contents are kept in the
+ * {@link BlobStore}, i.e., a file viewed again or replayed later is not
+ * transferred again.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class SubmissionBrowser implements ISubmissionBrowser {
+
+    /**
+     * Stores the name of the directory for opened files in the cache
+     * directory.
+     *
+     * @since 2.4
+     */
+    private static final String BROWSE_DIR = "browse";
+
+    /**
+     * Stores the communication instance creating the session.
+     *
+     * @since 2.4
+     */
+    private SvnSubmissionCommunication comm;
+
+    /**
+     * Stores the URL of the submission.
+     *
+     * @since 2.4
+     */
+    private String url;
+
+    /**
+     * Stores the browsed revision.
+     *
+     * @since 2.4
+     */
+    private long revision;
+
+    /**
+     * Stores the session, created on demand.
+     *
+     * @since 2.4
+     */
+    private SVNRepository session;
+
+    /**
+     * Stores whether this browser was closed.
+     *
+     * @since 2.4
+     */
+    private boolean closed;
+
+    /**
+     * Stores the directory listings loaded so far by their paths.
+     *
+     * @since 2.4
+     */
+    private Map<String, List<SubmissionDirEntry>> listings = new HashMap<String, List<SubmissionDirEntry>>();
+
+    /**
+     * Creates a new browser.
+     *
+     * @param comm the communication instance creating the session
+     * @param url the URL of the submission
+     * @param revision the revision to be browsed
+     *
+     * @since 2.4
+     */
+    SubmissionBrowser(SvnSubmissionCommunication comm, String url, long revision) {
+        this.comm = comm;
+        this.url = url;
+        this.revision = revision;
+    }
+
+    @Override
+    public long getRevision() {
+        return revision;
+    }
+
+    @Override
+    public synchronized List<SubmissionDirEntry> list(String path) throws CommunicationException {
+        List<SubmissionDirEntry> result = listings.get(path);
+        if (null == result) {
+            MetadataStore store = MetadataStore.getInstance();
+            result = store.getListing(url, revision, path);
+            if (null == result) {
+                result = fetchListing(path);
+                store.putListing(url, revision, path, result);
+            }
+            result = Collections.unmodifiableList(result);
+            listings.put(path, result);
+        }
+        return result;
+    }
+
+    /**
+     * Fetches the listing of a directory from the repository.
+     *
+     * @param path the path of the directory
+     * @return the entries
+     * @throws CommunicationException in the case of communication errors
+     *
+     * @since 2.4
+     */
+    private List<SubmissionDirEntry> fetchListing(String path) throws CommunicationException {
+        List<SubmissionDirEntry> result = new ArrayList<SubmissionDirEntry>();
+        try {
+            Collection<SVNDirEntry> entries = getSession().getDir(path, revision, null, SVNDirEntry.DIRENT_ALL,
+                (Collection<?>) null);
+            for (SVNDirEntry entry : entries) {
+                result.add(new SubmissionDirEntry(entry.getName(), entry.getSize(), entry.getDate(),
+                    SVNNodeKind.DIR == entry.getKind(), entry.getAuthor()));
+            }
+        } catch (SVNException e) {
+            throw new CommunicationException(CommunicationException.SubmissionPublicMessage.
+                PROBLEM_PREVIOUS_SUBMISSIONS, e);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized InputStream open(String path) throws CommunicationException {
+        try {
+            SVNRepository repository = getSession();
+            // properties only, the contents may be in the store
+            SVNProperties properties = new SVNProperties();
+            repository.getFile(path, revision, properties, null);
+            String checksum = properties.getStringValue(SVNProperty.CHECKSUM);
+            File dir = new File(IConfiguration.INSTANCE.getCacheDirectory(), BROWSE_DIR);
+            dir.mkdirs();
+            File file = File.createTempFile(BROWSE_DIR, null, dir);
+            if (null == checksum || !fromStore(checksum, repository, path, file)) {
+                try (OutputStream out = new FileOutputStream(file)) {
+                    repository.getFile(path, revision, null, out);
+                }
+            }
+            return Files.newInputStream(file.toPath(), StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (SVNException e) {
+            throw new CommunicationException(CommunicationException.SubmissionPublicMessage.
+                PROBLEM_PREVIOUS_SUBMISSIONS, e);
+        } catch (IOException e) {
+            throw new CommunicationException(CommunicationException.SubmissionPublicMessage.FILE_IO_ERROR, e);
+        }
+    }
+
+    /**
+     * Materializes a file from the {@link BlobStore}. A missing blob is
+     * fetched into the store first.
+     *
+     * @param checksum the MD5 checksum of the file
+     * @param repository the session to fetch a missing blob with
+     * @param path the path of the file
+     * @param target the file to be created
+     * @return <code>true</code> if the file was materialized,
+     *         <code>false</code> if the blob was evicted meanwhile
+     * @throws SVNException in case that the blob cannot be fetched
+     * @throws IOException in case that <code>target</code> cannot be written
+     *
+     * @since 2.4
+     */
+    private boolean fromStore(String checksum, SVNRepository repository, String path, File target)
+        throws SVNException, IOException {
+        BlobStore store = BlobStore.getInstance();
+        boolean result = store.copyTo(checksum, target);
+        if (!result) {
+            store.fetch(checksum, repository, path, revision);
+            result = store.copyTo(checksum, target);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the session, created on first use.
+     *
+     * @return the session
+     * @throws SVNException if the session cannot be created
+     *
+     * @since 2.4
+     */
+    private SVNRepository getSession() throws SVNException {
+        if (closed) {
+            throw new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED, "error: browser closed"));
+        }
+        if (null == session) {
+            session = comm.createSession(url);
+        }
+        return session;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (null != session) {
+            session.closeSession();
+            session = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+}
@@ -0,0 +1,192 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.tmatesoft.svn.core.SVNDepth;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
+import org.tmatesoft.svn.core.io.ISVNReporterBaton;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.Activator;
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.ReplayOptions;
+
+/**
+ * Transfers submissions from the repository into an {@link ExportEditor},
+ * either as an export of an entire revision or as an incremental update of a
+ * directory replayed before. The contents are committed to the target directory of the
+ * editor and recorded in the {@link BlobStore}.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class SvnExporter {
+
+    /**
+     * Stores the configuration key enabling incremental replays.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_INCREMENTAL = "replay.incremental";
+
+    /**
+     * Prevents this utility class from being instantiated.
+     *
+     * @since 2.4
+     */
+    private SvnExporter() {
+    }
+
+    /**
+     * Synchronizes the target directory of <code>exportEditor</code> with a revision. If the directory was
+     * replayed from the same URL with the same options before (see {@link ReplayManifest}) and the revision is not
+     * known to the {@link BlobStore}, only the deltas between the previously replayed revision and
+     * <code>revision</code> are transferred. Otherwise, the revision is exported. Afterwards, the manifest of the
+     * directory is updated. Incremental replays can be disabled by <code>replay.incremental</code>.
+     *
+     * @param url The URL (absolute path) to the folder to synchronize with
+     * @param revision The revision to synchronize with, preferably the last changed revision of <code>url</code>
+     * @param exportEditor An export editor for the directory, switched to synchronization mode
+     * @param sizes The sizes of the top-level elements of <code>revision</code> for a {@link ParallelExport}, may be
+     *     <b>null</b>
+     * @param authManager The authentication manager for the sessions
+     * @return the created, changed or deleted paths relative to the target directory of <code>exportEditor</code>
+     * @throws SVNException A wrapping exception in the case of (communication) errors
+     *
+     * @since 2.4
+     */
+    static Set<String> sync(String url, long revision, ExportEditor exportEditor, Map<String, Long> sizes,
+        ISVNAuthenticationManager authManager) throws SVNException {
+        File target = exportEditor.getTargetDirectory();
+        ReplayOptions options = exportEditor.getReplayOptions();
+        boolean incremental = Boolean.valueOf(IConfiguration.INSTANCE.getProperty(CONFIG_INCREMENTAL, "true").trim());
+        exportEditor.setSyncMode(true);
+        ReplayManifest manifest = incremental ? ReplayManifest.load(target) : null;
+        ReplayManifest.delete(target);
+        boolean known = null != BlobStore.getInstance().getTree(url, revision);
+        // the server assumes that the directory matches the manifest, including the replayed parts
+        if (!known && null != manifest && url.equals(manifest.getUrl())
+            && options.toString().equals(manifest.getOptions())) {
+            update(url, manifest, revision, exportEditor, authManager);
+        } else {
+            export(url, revision, exportEditor, sizes, authManager);
+        }
+        if (incremental) {
+            new ReplayManifest(target, url, revision, options.toString(), exportEditor.getEntries()).store();
+        }
+        return exportEditor.getChangedPaths();
+    }
+
+    /**
+     * Exports a SVN repository or a sub path to a given directory. Files which do not match the checksum sent by the
+     * server are fetched once more individually (and verified again) on the same session. If the tree of
+     * <code>url</code> at <code>revision</code> is known to the {@link BlobStore}, the files are materialized from the
+     * store and only missing blobs are transferred. Elements not accepted by the {@link ExportEditor#getReplayOptions()
+     * replay options} of <code>exportEditor</code> are excluded in the request as far as possible. Large
+     * submissions are exported over multiple sessions concurrently (see {@link ParallelExport}) unless they are read
+     * from the {@link RepositoryMirror}.
+     *
+     * @param url The URL (absolute path) to a folder to export
+     * @param revision The revision to be exported
+     * @param exportEditor A (reusable) export editor object
+     * @param sizes The sizes of the top-level elements of <code>revision</code> for a {@link ParallelExport}, may be
+     *     <b>null</b>
+     * @param authManager The authentication manager for the sessions
+     * @throws SVNException A wrapping exception in the case of (communication) errors or if a file cannot be
+     *     re-fetched with a valid checksum
+     *
+     * @since 2.4
+     */
+    static void export(String url, long revision, ExportEditor exportEditor, Map<String, Long> sizes,
+        ISVNAuthenticationManager authManager) throws SVNException {
+
+        // the store refers to the server URL, independent of where the contents are read from
+        String location = RepositoryMirror.route(url, revision);
+        SVNRepository tmprepo = SVNRepositoryFactory.create(SVNURL.parseURIEncoded(location));
+        tmprepo.setAuthenticationManager(authManager);
+        BlobStore store = BlobStore.getInstance();
+        Map<String, String> tree = store.getTree(url, revision);
+        ReplayOptions options = exportEditor.getReplayOptions();
+        List<List<String>> groups = ParallelExport.partition(location.equals(url) ? sizes : null, options);
+        try {
+            if (null != tree) {
+                exportEditor.materialize(tree, store, tmprepo, revision);
+            } else if (!groups.isEmpty()) {
+                ParallelExport.export(tmprepo.getLocation(), revision, groups, exportEditor,
+                    authManager);
+            } else if (options.isFiltering()) {
+                SVNDepth depth = ReplayReporter.toDepth(options);
+                tmprepo.update(revision, null, depth, false, new ReplayReporter(revision, true, depth,
+                    ReplayReporter.getExcludedPaths(tmprepo, revision, options), Collections.<String>emptyList()),
+                    exportEditor);
+            } else {
+                tmprepo.checkout(revision, null, true, exportEditor);
+            }
+            if (null == tree && !exportEditor.getChecksumMismatches().isEmpty()) {
+                if (IConfiguration.INSTANCE.isDebuggingEnabled()) {
+                    Activator.log("ExerciseSubmitter: re-fetching " + exportEditor.getChecksumMismatches().keySet()
+                        + " from " + url, new Throwable());
+                }
+                exportEditor.repairChecksumMismatches(tmprepo);
+            }
+            exportEditor.commit();
+            // a partial tree must not be materialized for other replays
+            if (null == tree && !options.isFiltering()) {
+                store.putTree(url, revision, exportEditor.getTargetDirectory(), exportEditor.getEntries());
+            }
+        } finally {
+            exportEditor.discard();
+            tmprepo.closeSession();
+        }
+    }
+
+    /**
+     * Updates a directory replayed before to another revision. Only the text deltas between the revision
+     * recorded in <code>manifest</code> and <code>revision</code> are transferred, except for locally modified or
+     * deleted files, which are transferred entirely.
+     * 
+     * @param url The URL (absolute path) to the replayed folder
+     * @param manifest The manifest describing the current state of the directory
+     * @param revision The revision to update to
+     * @param exportEditor An export editor in synchronization mode for the directory
+     * @param authManager The authentication manager for the session
+     * @throws SVNException A wrapping exception in the case of (communication) errors
+     * 
+     * @since 2.4
+     */
+    static void update(String url, ReplayManifest manifest, long revision, ExportEditor exportEditor,
+        ISVNAuthenticationManager authManager) throws SVNException {
+        
+        List<String> modified = manifest.getLocallyModified();
+        ReplayOptions options = exportEditor.getReplayOptions();
+        SVNDepth depth = ReplayReporter.toDepth(options);
+        exportEditor.setEntries(manifest.getEntries());
+        SVNRepository tmprepo = SVNRepositoryFactory.create(SVNURL.parseURIEncoded(
+            RepositoryMirror.route(url, revision)));
+        tmprepo.setAuthenticationManager(authManager);
+        try {
+            ISVNReporterBaton reporterBaton = new ReplayReporter(manifest.getRevision(), false, depth,
+                ReplayReporter.getExcludedPaths(tmprepo, revision, options), modified);
+            tmprepo.update(revision, null, depth, false, reporterBaton, exportEditor);
+            if (!exportEditor.getChecksumMismatches().isEmpty()) {
+                exportEditor.repairChecksumMismatches(tmprepo);
+            }
+            exportEditor.commit();
+            if (!options.isFiltering()) {
+                BlobStore.getInstance().putTree(url, revision, exportEditor.getTargetDirectory(),
+                    exportEditor.getEntries());
+            }
+        } finally {
+            exportEditor.discard();
+            tmprepo.closeSession();
+        }
+    }
+
+}
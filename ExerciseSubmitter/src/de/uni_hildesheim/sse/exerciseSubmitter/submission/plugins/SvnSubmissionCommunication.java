@@ -7,6 +7,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.channels.FileChannel;
 import java.text.Format;
 import java.text.SimpleDateFormat;
@@ -16,8 +17,10 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
 
 import org.tmatesoft.svn.core.SVNCommitInfo;
@@ -31,13 +34,13 @@ import org.tmatesoft.svn.core.SVNURL;
 import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
 import org.tmatesoft.svn.core.internal.io.dav.DAVRepositoryFactory;
 import org.tmatesoft.svn.core.internal.wc.DefaultSVNAuthenticationManager;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import org.tmatesoft.svn.core.io.ISVNEditor;
 import org.tmatesoft.svn.core.io.SVNRepository;
 import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
 import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
 import org.tmatesoft.svn.core.wc.admin.SVNChangeEntry;
 
-import de.uni_hildesheim.sse.exerciseSubmitter.Activator;
 import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
 import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.GuiUtils;
 import de.uni_hildesheim.sse.exerciseSubmitter.eclipse.util.GuiUtils.DialogType;
@@ -49,8 +52,11 @@ import de.uni_hildesheim.sse.exerciseSubmitter.submission.Executable;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.FileChecksumUtil;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.IPathFactory;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.ISubmission;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.ISubmissionBrowser;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.IVersionedSubmission;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.LoginSession;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.ProgressListener;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.ReplayOptions;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.
     SubmissionCommunication;
 import de.uni_hildesheim.sse.exerciseSubmitter.submission.SubmissionDirEntry;
@@ -117,6 +123,18 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
         public String getProtocol() {
             return "svn";
         }
+
+        /**
+         * Stops mirroring the repository and closes the metadata store shared
+         * by all instances.
+         * 
+         * @since 2.4
+         */
+        @Override
+        public void shutdown() {
+            RepositoryMirror.stop();
+            MetadataStore.shutdown();
+        }
     };
 
     /**
@@ -149,25 +167,18 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
     private String logServer;
 
     /**
-     * Stores the tasks/exercises available for submission.
+     * Stores the browsers created by this instance, closed on cleanup.
      * 
-     * @since 1.00
-     */
-    private List<Assignment> availableForSubmission = new ArrayList<>();
-
-    /**
-     * Stores the tasks/exercises available for replay.
-     * 
-     * @since 1.00
+     * @since 2.4
      */
-    private List<Assignment> availableForReplay = new ArrayList<>();
+    private List<ISubmissionBrowser> browsers = new ArrayList<ISubmissionBrowser>();
 
     /**
-     * Stores the tasks/exercises available for review.
+     * Stores the tasks/exercises available for submission, replay and review.
      * 
-     * @since 2.00
+     * @since 2.4
      */
-    private List<Assignment> availableForReview = new ArrayList<>();
+    private AssignmentCache assignments;
     
     /**
      * Stores the instance representing the SVN repository.
@@ -183,6 +194,13 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
      */
     private SVNRepository logRepository;
 
+    /**
+     * Stores the cached histories of the submissions.
+     * 
+     * @since 2.4
+     */
+    private LogCache logCache = new LogCache();
+
     /**
      * Stores the authentication manager used to authenticate the user against the repository on {@link #server}.
      * 
@@ -212,6 +230,7 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
         super(username, password);
 
         this.asReviewer = asReviewer;
+        this.assignments = new AssignmentCache(getStudentMgmtProtocol(), asReviewer);
         // do self-configuration
         this.server = normalizeServerName(IConfiguration.INSTANCE.getProperty("svn.server"));
         this.logServer = normalizeServerName(IConfiguration.INSTANCE.getProperty("svn.log.server"));
@@ -248,6 +267,12 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
      * @since 1.20
      */
     protected void cleanup() {
+        synchronized (browsers) {
+            for (ISubmissionBrowser browser : browsers) {
+                browser.close();
+            }
+            browsers.clear();
+        }
         if (null != repository) {
             repository.closeSession();
         }
@@ -294,7 +319,7 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
      */
     public boolean authenticateUser() throws CommunicationException {
         try {
-            getStudentMgmtProtocol().login(getUserName(false), getPassword());
+            LoginSession.getInstance().login(getStudentMgmtProtocol(), getUserName(false), getPassword());
         } catch (NetworkException e) {
             throw new CommunicationException(CommunicationException.SubmissionPublicMessage.
                 UNABLE_TO_CONTACT_STUDENT_MANAGEMENT_SERVER, e);
@@ -311,6 +336,9 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
         // it will return a special authentication manager for eclipse which
         // will not work for our purposes
         repository.setAuthenticationManager(createAuthenticationManager());
+        if (asReviewer) {
+            RepositoryMirror.start(server, createAuthenticationManager());
+        }
         reInitialize();
         return true;
     }
@@ -339,6 +367,77 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
         return authManager;
     }
 
+    /**
+     * Creates a new session for read-only operations, e.g., for background operations. The session reads from the
+     * {@link RepositoryMirror} if it is current.
+     * 
+     * @param url the location of the session
+     * @return the session, to be closed by the caller
+     * @throws SVNException if <code>url</code> is malformed
+     * 
+     * @since 2.4
+     */
+    SVNRepository createSession(String url) throws SVNException {
+        SVNRepository result = SVNRepositoryFactory.create(SVNURL.parseURIEncoded(RepositoryMirror.route(url, -1)));
+        result.setAuthenticationManager(createAuthenticationManager());
+        return result;
+    }
+
+    /**
+     * Returns the session for read-only operations, i.e., the session on the {@link RepositoryMirror} if it contains
+     * the latest revision of the server known so far, {@link #repository} else. The server is not contacted.
+     * 
+     * @return the session, not to be closed by the caller
+     * @throws SVNException in the case of errors
+     * 
+     * @since 2.4
+     */
+    private SVNRepository getReadSession() throws SVNException {
+        SVNRepository mirror = RepositoryMirror.getCurrentSession();
+        return null == mirror ? repository : mirror;
+    }
+
+    /**
+     * Returns the location of the submission of a certain group in reviewer mode.
+     * 
+     * @param assignment the assignment
+     * @param group the name of the group (submission directory)
+     * @return the location of the submission
+     * @throws CommunicationException if the student management server cannot be contacted
+     * 
+     * @since 2.4
+     */
+    SubmissionTarget getPathToSubmission(Assignment assignment, String group) throws CommunicationException {
+        try {
+            return assignments.getPathToSubmission(assignment, group);
+        } catch (NetworkException e) {
+            throw new CommunicationException(CommunicationException.SubmissionPublicMessage.
+                UNABLE_TO_CONTACT_STUDENT_MANAGEMENT_SERVER, e);
+        }
+    }
+
+    /**
+     * Stores a revision of a submission in the {@link BlobStore} unless it is already known, i.e., a later replay of
+     * this revision is a local copy.
+     * 
+     * @param url the URL of the submission
+     * @param revision the last changed revision of the submission
+     * @throws SVNException in the case of (communication) errors
+     * 
+     * @since 2.4
+     */
+    void prefetch(String url, long revision) throws SVNException {
+        if (null == BlobStore.getInstance().getTree(url, revision)) {
+            File tmp = new File(IConfiguration.INSTANCE.getCacheDirectory(), "prefetch");
+            tmp = new File(tmp, SVNFileUtil.computeChecksum(url + "@" + revision));
+            try {
+                SvnExporter.export(url, revision, new ExportEditor(tmp, null), null, createAuthenticationManager());
+            } finally {
+                CommonStuff.rmdir(tmp, true);
+            }
+        }
+    }
+
     /**
      * Re-initializes data stored in this communication object.
      * 
@@ -348,20 +447,27 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
      * @since 2.00
      */
     public void reInitialize() throws CommunicationException {
+        refreshAssignments(true);
+    }
+
+    /**
+     * Refreshes the tasks/exercises available for submission, replay and review. Concurrent refreshes share a single
+     * query to the student management system.
+     * 
+     * @param force <code>true</code> if the tasks/exercises shall be queried regardless of their age,
+     *     <code>false</code> if they shall only be queried if outdated
+     * @return the refreshed tasks/exercises
+     * 
+     * @since 2.4
+     */
+    private AssignmentCache refreshAssignments(boolean force) {
         try {
-            availableForSubmission = getStudentMgmtProtocol().getOpenAssignments();
-            availableForReplay = getStudentMgmtProtocol().getReviewedAssignments();
-            availableForReview = getStudentMgmtProtocol().getReviewableAssignments();
-            if (asReviewer) {
-                availableForSubmission.addAll(availableForReview);
-            }
-            availableForSubmission.sort((a1, a2) -> a1.getName().compareTo(a2.getName()));
-            availableForReplay.sort((a1, a2)     -> a1.getName().compareTo(a2.getName()));
-            availableForReview.sort((a1, a2)     -> a1.getName().compareTo(a2.getName()));
+            assignments.refresh(force);
         } catch (NetworkException e) {
             GuiUtils.openDialog(DialogType.ERROR, "Could not query Studenten Management System to retrieve list of "
                 + "open assignments.");
         }
+        return assignments;
     }
 
     /**
@@ -373,24 +479,31 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
      * @since 2.00
      */
     public List<Assignment> getSubmissionsForReview() {
-        return availableForReview;
+        return refreshAssignments(false).getAvailableForReview();
     }
 
     @Override
     public List<IVersionedSubmission> getSubmissionsForReplay(Assignment assignment) throws CommunicationException {
+        List<IVersionedSubmission> result = getSubmissionsForReplay(assignment, -1, Integer.MAX_VALUE);
+        // the oldest first as ever
+        Collections.reverse(result);
+        return result;
+    }
+
+    @Override
+    public List<IVersionedSubmission> getSubmissionsForReplay(Assignment assignment, long startRevision, int limit)
+        throws CommunicationException {
         List<IVersionedSubmission> result = new ArrayList<IVersionedSubmission>();
         try {
-            SubmissionTarget dest = getStudentMgmtProtocol().getPathToSubmission(assignment);
-            if (availableForSubmission.contains(assignment) || asReviewer) {
-                String[] targetPaths = new String[] {dest.getAbsolutePathInRepository()};
-                Collection<?> revisions = repository.log(targetPaths, null, 0, repository.getLatestRevision(), false,
-                    false);
-                for (Object o : revisions) {
-                    SVNLogEntry entry = (SVNLogEntry) o;
+            SubmissionTarget dest = assignments.getPathToSubmission(assignment);
+            SVNRepository session = getReadSession();
+            if (getAvailableForSubmission().contains(assignment) || asReviewer) {
+                for (SVNLogEntry entry : logCache.getEntries(session, dest.getAbsolutePathInRepository(),
+                    startRevision, limit)) {
                     result.add(new SVNSubmission(entry.getDate(), entry.getRevision(), entry.getAuthor(), dest));
                 }
-            } else {
-                Collection<SVNDirEntry> dirs = getDirs(repository, -1, dest.getSubmissionPath(), null);
+            } else if (startRevision < 0 && limit > 0) {
+                Collection<SVNDirEntry> dirs = getDirs(session, -1, dest.getSubmissionPath(), null);
                 if (dirs.size() > 0) {
                     SVNSubmission resultSubmission = new SVNSubmission(new Date(), -1, "", dest);
                     resultSubmission.setDate("reviewed");
@@ -543,10 +656,12 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
     public List<String> getUserNames() {
         List<String> result = new ArrayList<String>();
         Assignment topLevelDir = null;
-        if (!availableForSubmission.isEmpty()) {
-            topLevelDir = availableForSubmission.get(0);
-        } else if (!availableForReplay.isEmpty()) {
-            topLevelDir = availableForReplay.get(0);
+        List<Assignment> forSubmission = getAvailableForSubmission();
+        List<Assignment> forReplay = getSubmissionsForReplay();
+        if (!forSubmission.isEmpty()) {
+            topLevelDir = forSubmission.get(0);
+        } else if (!forReplay.isEmpty()) {
+            topLevelDir = forReplay.get(0);
         }
         if (null != topLevelDir) {
             try {
@@ -885,10 +1000,8 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
         private SVNCommExecutable(ISubmission submission, Assignment assignment) throws CommunicationException {
             super(submission, assignment);
             
-            // Update list of submitable / reviewable projects before submission
-            reInitialize();
-            
-            if (availableForSubmission.contains(assignment)) {
+            // Update list of submitable / reviewable projects before submission if outdated
+            if (refreshAssignments(false).getAvailableForSubmission().contains(assignment)) {
                 submitDir = submission.getPath();
                 numberOfSteps = 1 + 1; // checkIn will follow
                 try {
@@ -923,11 +1036,10 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
                 && getStudentMgmtProtocol() instanceof ExerciseReviewerProtocol) {
                 
                 // In Review: Reviewer submits projects for other students
-                destination = ((ExerciseReviewerProtocol) getStudentMgmtProtocol()).getPathToSubmission(
-                    assignment, submitDir.getName());
+                destination = assignments.getPathToSubmission(assignment, submitDir.getName());
             } else {
                 // Default case: Protocol determines location
-                destination = getStudentMgmtProtocol().getPathToSubmission(assignment);
+                destination = assignments.getPathToSubmission(assignment);
             }
             return destination;
         }
@@ -1038,6 +1150,7 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
             }
             try {
                 SVNCommitInfo info = editor.closeEdit();
+                RepositoryMirror.observe(info.getNewRevision());
                 SVNErrorMessage message = info.getErrorMessage();
                 String msg = "";
                 if (message != null) {
@@ -1090,7 +1203,7 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
             if (null != preCommitTmpDir) {
                 CommonStuff.rmdir(preCommitTmpDir, true);
             }
-            reInitialize();
+            assignments.invalidate();
         }
 
         /**
@@ -1424,32 +1537,48 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
 
     @Override
     public List<Assignment> getAvailableForSubmission() {
-        return availableForSubmission;
+        return refreshAssignments(false).getAvailableForSubmission();
     }
     
     @Override
     public List<Assignment> getSubmissionsForReplay() {
-        return availableForReplay;
+        return refreshAssignments(false).getAvailableForReplay();
     }
 
     @Override
     public ISubmission replaySubmission(ISubmission submission, Assignment assignment,
         ProgressListener<ISubmission> listener) throws CommunicationException {
+        return replaySubmission(submission, assignment, listener, ReplayOptions.ALL);
+    }
+
+    @Override
+    public ISubmission replaySubmission(ISubmission submission, Assignment assignment,
+        ProgressListener<ISubmission> listener, ReplayOptions options) throws CommunicationException {
         
         try {
-            SubmissionTarget destination = getStudentMgmtProtocol().getPathToSubmission(assignment);
-            Collection<SVNDirEntry> contents = getDirs(repository, repository.getLatestRevision(),
-                    destination.getAbsolutePathInRepository(), null);
+            SubmissionTarget destination = assignments.getPathToSubmission(assignment);
+            SVNRepository session = getReadSession();
+            long latest = session.getLatestRevision();
+            Collection<SVNDirEntry> contents = getDirs(session, latest, destination.getAbsolutePathInRepository(),
+                null);
             if (null != listener) {
                 listener.numberofStepsChanged(contents.size());
             }
+            submission.setChangedPaths(Collections.<String>emptySet());
             if (!contents.isEmpty()) {
-                CommonStuff.rmdir(submission.getPath(), false);
-                
-                if (availableForReplay.contains(assignment)) {
-                    svnExport(destination, submission.getPath().getAbsolutePath(),
-                        repository.getLatestRevision(), listener);
+                if (getSubmissionsForReplay().contains(assignment)) {
+                    ExportEditor exportEditor = new ExportEditor(submission.getPath(), listener);
+                    exportEditor.setReplayOptions(options);
+                    Set<String> changed = svnSync(destination, latest, exportEditor,
+                        ParallelExport.getSubtreeSizes(contents));
                     adjustFilesAfterReplay(submission.getPath());
+                    submission.setChangedPaths(withProjectFile(changed));
+                    if (asReviewer) {
+                        Prefetcher.schedule(this, assignment, destination);
+                    }
+                } else {
+                    CommonStuff.rmdir(submission.getPath(), false);
+                    submission.setChangedPaths(null);
                 }
     
                 if (null != listener) {
@@ -1471,81 +1600,169 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
     @Override
     public void replayEntireTask(File path, Assignment assignment, ProgressListener<ISubmission> listener, 
         IPathFactory factory) throws CommunicationException {
+        replayEntireTask(path, assignment, listener, factory, ReplayOptions.ALL);
+    }
+
+    @Override
+    public void replayEntireTask(File path, Assignment assignment, ProgressListener<ISubmission> listener, 
+        IPathFactory factory, ReplayOptions options) throws CommunicationException {
         
         if (null == factory) {
             factory = this;
         }
 
-        SubmissionTarget destFolder;
-        if (asReviewer) {
-            destFolder = ((ExerciseReviewerProtocol) getStudentMgmtProtocol()).getPathToSubmission(assignment, "");
-        } else {
-            throw new CommunicationException(CommunicationException.SubmissionPublicMessage.
-                INVALID_USER_ROLE, new Throwable());
-        }
-        SVNException thrownException = null;
+        SubmissionTarget destFolder = getAllSubmissionsTarget(assignment);
+        CommunicationException failure;
         try {
-            List<SVNDirEntry> skipDirs = new ArrayList<>();
-            Collection<SVNDirEntry> dirs = repository.getDir(destFolder.getAssignmentName(),
-                repository.getLatestRevision(), null, SVNDirEntry.DIRENT_ALL, (Collection<?>) null);
+            Collection<SVNDirEntry> dirs = getSubmissionDirs(destFolder, null != listener);
+            ExportEditor exportEditor = new ExportEditor(null, listener);
+            exportEditor.setReplayOptions(options);
+            // resumes an interrupted replay, retries failing submissions
+            TaskReplay replay = new TaskReplay(destFolder.getAllSubmissionsURL(), path, factory, exportEditor,
+                createAuthenticationManager());
+            replay.replay(dirs);
+            adjustFilesAfterReplay(replay.getReplayed());
             if (null != listener) {
-                for (SVNDirEntry entry : dirs) {
-                    if (entry.getKind() == SVNNodeKind.DIR) {
-                        Collection<SVNDirEntry> contents = getDirs(repository, repository.getLatestRevision(),
-                            destFolder.getAssignmentName() + "/" + entry.getRelativePath(), null);
-                        if (contents.isEmpty()) {
-                            skipDirs.add(entry);
-                        }
-                    }
-                }
-            }
-            for (Object skip : skipDirs) {
-                dirs.remove(skip);
+                listener.finished(true, null);
             }
-
-            ExportEditor exportEditor = new ExportEditor(null, listener);
-            for (SVNDirEntry entry : dirs) {
+            failure = replay.getFailure();
+        } catch (SVNException e) {
+            failure = new CommunicationException(
+                CommunicationException.SubmissionPublicMessage.
+                PROBLEM_PREVIOUS_SUBMISSIONS, e);
+        }
+        if (null != failure) {
+            throw failure;
+        }
+    }
+    
+    @Override
+    public void replayEntireTask(OutputStream out, Assignment assignment, ProgressListener<ISubmission> listener,
+        ReplayOptions options) throws CommunicationException {
+        SubmissionTarget destFolder = getAllSubmissionsTarget(assignment);
+        try {
+            ZipExportEditor zipEditor = new ZipExportEditor(out, listener);
+            zipEditor.setReplayOptions(options);
+            // empty submissions are skipped while streaming
+            for (SVNDirEntry entry : getSubmissionDirs(destFolder, false)) {
                 if (entry.getKind() == SVNNodeKind.DIR) {
-                    File target = factory.createPath(path, entry.getName());
-                    CommonStuff.rmdir(target, false);
-                    exportEditor.setTargetDirectory(target);
+                    SVNRepository session = createSession(destFolder.getAllSubmissionsURL() + "/" + entry.getName());
                     try {
-                        String urlToSubmission = destFolder.getAllSubmissionsURL() + "/" + entry.getName();
-                        svnExport(urlToSubmission, repository.getLatestRevision(), exportEditor);
-                        adjustFilesAfterReplay(target);
-                    } catch (SVNException e) {
-                        if (null == thrownException) {
-                            thrownException = e;
-                        } else {
-                            if (IConfiguration.INSTANCE.isDebuggingEnabled()) {
-                                Activator.log("ExerciseSubmitter", e);
-                            }
-                        }
+                        zipEditor.export(session, entry.getRevision(), entry.getName());
+                    } finally {
+                        session.closeSession();
                     }
                 }
             }
-            
+            zipEditor.finish();
             if (null != listener) {
                 listener.finished(true, null);
             }
+        } catch (SVNException e) {
+            throw new CommunicationException(CommunicationException.SubmissionPublicMessage.
+                PROBLEM_PREVIOUS_SUBMISSIONS, e);
+        }
+    }
 
+    @Override
+    public ISubmissionBrowser browse(Assignment assignment, String submission, long revision)
+        throws CommunicationException {
+        if (!asReviewer) {
+            throw new CommunicationException(CommunicationException.SubmissionPublicMessage.
+                INVALID_USER_ROLE, new Throwable());
+        }
+        SubmissionTarget target = getPathToSubmission(assignment, submission);
+        ISubmissionBrowser result;
+        try {
+            SVNDirEntry info = getReadSession().info(target.getAbsolutePathInRepository(), revision);
+            if (null == info || SVNNodeKind.DIR != info.getKind()) {
+                throw new CommunicationException(CommunicationException.SubmissionPublicMessage.
+                    PROBLEM_PREVIOUS_SUBMISSIONS, new Throwable());
+            }
+            // the last changed revision identifies the contents, i.e., the cached files stay valid
+            result = new SubmissionBrowser(this, target.getSubmissionURL(), revision < 0 ? info.getRevision()
+                : revision);
+            synchronized (browsers) {
+                browsers.add(result);
+            }
         } catch (SVNException e) {
-            thrownException = e;
+            throw new CommunicationException(CommunicationException.SubmissionPublicMessage.
+                PROBLEM_PREVIOUS_SUBMISSIONS, e);
         }
-        if (null != thrownException) {
-            throw new CommunicationException(
-                CommunicationException.SubmissionPublicMessage.
-                PROBLEM_PREVIOUS_SUBMISSIONS, thrownException);
+        return result;
+    }
+
+    /**
+     * Returns the location of all submissions of an assignment.
+     * 
+     * @param assignment the assignment
+     * @return the location of all submissions
+     * @throws CommunicationException if this instance is not in reviewer mode or in the case of communication errors
+     * 
+     * @since 2.4
+     */
+    private SubmissionTarget getAllSubmissionsTarget(Assignment assignment) throws CommunicationException {
+        if (!asReviewer) {
+            throw new CommunicationException(CommunicationException.SubmissionPublicMessage.
+                INVALID_USER_ROLE, new Throwable());
         }
+        return getPathToSubmission(assignment, "");
     }
-    
+
+    /**
+     * Lists the submissions of an assignment.
+     * 
+     * @param destFolder the location of all submissions
+     * @param skipEmpty whether empty submissions shall be omitted
+     * @return the entries of the submissions
+     * @throws SVNException in the case of (communication) errors
+     * 
+     * @since 2.4
+     */
+    private Collection<SVNDirEntry> getSubmissionDirs(SubmissionTarget destFolder, boolean skipEmpty)
+        throws SVNException {
+        SVNRepository session = getReadSession();
+        long latest = session.getLatestRevision();
+        Collection<SVNDirEntry> dirs = session.getDir(destFolder.getAssignmentName(), latest, null,
+            SVNDirEntry.DIRENT_ALL, (Collection<?>) null);
+        Iterator<SVNDirEntry> iter = dirs.iterator();
+        while (skipEmpty && iter.hasNext()) {
+            SVNDirEntry entry = iter.next();
+            if (entry.getKind() == SVNNodeKind.DIR && getDirs(session, latest,
+                destFolder.getAssignmentName() + "/" + entry.getRelativePath(), null).isEmpty()) {
+                iter.remove();
+            }
+        }
+        return dirs;
+    }
+
+    /**
+     * Adjusts the files of multiple replayed directories. As the directories are independent, they are adjusted in
+     * parallel.
+     * 
+     * @param targetDirs the replayed directories
+     * 
+     * @since 2.4
+     */
+    private void adjustFilesAfterReplay(List<File> targetDirs) {
+        targetDirs.parallelStream().forEach(target -> adjustFilesAfterReplay(target));
+    }
+
+    @Override
+    public void adjustFilesAfterReplay(File targetDir) {
+        super.adjustFilesAfterReplay(targetDir);
+        // not a local modification, i.e., not transferred again by the next incremental replay
+        ReplayManifest.recordAdjusted(targetDir, ".project");
+    }
+
     @Override
     public List<SubmissionDirEntry> getLastContents(Assignment assignment) 
         throws CommunicationException {
         List<SubmissionDirEntry> result = new ArrayList<SubmissionDirEntry>();
         try {
-            String svnPath = getStudentMgmtProtocol().getPathToSubmission(assignment).getAbsolutePathInRepository();
-            Collection<SVNDirEntry> contents = getDirs(repository, repository.getLatestRevision(), svnPath, null);
+            String svnPath = assignments.getPathToSubmission(assignment).getAbsolutePathInRepository();
+            SVNRepository session = getReadSession();
+            Collection<SVNDirEntry> contents = getDirs(session, session.getLatestRevision(), svnPath, null);
             for (SVNDirEntry entry : contents) {
                 SubmissionDirEntry newEnt = new SubmissionDirEntry(entry.getRelativePath(), entry.getSize(),
                     entry.getDate(), SVNNodeKind.DIR == entry.getKind(), entry.getAuthor());
@@ -1584,6 +1801,12 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
      */
     public ISubmission replaySubmission(ISubmission submission, IVersionedSubmission version,
         ProgressListener<ISubmission> listener) throws CommunicationException {
+        return replaySubmission(submission, version, listener, ReplayOptions.ALL);
+    }
+
+    @Override
+    public ISubmission replaySubmission(ISubmission submission, IVersionedSubmission version,
+        ProgressListener<ISubmission> listener, ReplayOptions options) throws CommunicationException {
         
         if (version == null) {
             throw new IllegalArgumentException();
@@ -1592,16 +1815,19 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
         try {
             SVNSubmission subm = (SVNSubmission) version;
             SubmissionTarget dest = subm.getRemotePath();
-            Collection<SVNDirEntry> contents = getDirs(repository, subm.getRevision(),
+            Collection<SVNDirEntry> contents = getDirs(getReadSession(), subm.getRevision(),
                 dest.getAbsolutePathInRepository(), null);
             if (null != listener) {
                 listener.numberofStepsChanged(contents.size());
             }
+            submission.setChangedPaths(Collections.<String>emptySet());
             if (!contents.isEmpty()) {
-                CommonStuff.rmdir(submission.getPath(), false);
-                
-                svnExport(dest, submission.getPath().getAbsolutePath(), subm.getRevision(), listener);
+                ExportEditor exportEditor = new ExportEditor(submission.getPath(), listener);
+                exportEditor.setReplayOptions(options);
+                Set<String> changed = svnSync(dest, subm.getRevision(), exportEditor,
+                    ParallelExport.getSubtreeSizes(contents));
                 adjustFilesAfterReplay(submission.getPath());
+                submission.setChangedPaths(withProjectFile(changed));
                 
                 if (null != listener) {
                     listener.finished(true, submission);
@@ -1634,41 +1860,68 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
     }
 
     /**
-     * Exports a SVN repository or a sub path to a given directory.
+     * Synchronizes a given directory with a SVN repository or a sub path. In contrast to
+     * {@link #svnExport(SubmissionTarget, String, long, ProgressListener)}, the directory is not wiped before, i.e.,
+     * only files differing from <code>revision</code> are rewritten and files not contained in <code>revision</code>
+     * are deleted. If the directory was replayed from the same URL before (see {@link ReplayManifest}), only the
+     * deltas between the previously replayed revision and <code>revision</code> are transferred (see
+     * {@link SvnExporter#sync(String, long, ExportEditor, Map, ISVNAuthenticationManager)}).
      * 
-     * @param destination The path in/to the repository to be exported
-     * @param revision The revision to be exported
-     * @param exportEditor A (reusable) export editor object
-     * @param userSpecific <tt>true</tt>Creates a user specific destination, <tt>false</tt> creates a reviewer location
-     *     that provides an URL to export all submissions.
+     * @param destination The path in/to the repository to be synchronized with
+     * @param revision The revision to be synchronized with
+     * @param exportEditor An export editor for the file system path to be synchronized, defining the elements to be
+     *     synchronized and an optional progress listener
+     * @param sizes The sizes of the top-level elements of <code>revision</code> for a {@link ParallelExport}, may be
+     *     <b>null</b>
+     * @return the created, changed or deleted paths relative to the target directory of <code>exportEditor</code>
      * @throws SVNException A wrapping exception in the case of (communication) errors
      * 
-     * @since 1.00
+     * @since 2.4
      */
-    private void svnExport(SubmissionTarget destination, long revision, ExportEditor exportEditor, boolean userSpecific)
-        throws SVNException {
+    private Set<String> svnSync(SubmissionTarget destination, long revision, ExportEditor exportEditor,
+        Map<String, Long> sizes) throws SVNException {
         
-        String url = userSpecific ? destination.getSubmissionURL() : destination.getAllSubmissionsURL();
-        svnExport(url, revision, exportEditor);
+        // same contents as revision, but stable as long as the submission is not changed
+        SVNDirEntry info = getReadSession().info(destination.getAbsolutePathInRepository(), revision);
+        if (null != info) {
+            revision = info.getRevision();
+        }
+        return SvnExporter.sync(destination.getSubmissionURL(), revision, exportEditor, sizes,
+            createAuthenticationManager());
     }
-    
+
+    /**
+     * Adds the Eclipse project file to the given changed paths as it may be modified by
+     * {@link #adjustFilesAfterReplay(File)}.
+     * 
+     * @param changed the changed paths
+     * @return the changed paths including the project file
+     * 
+     * @since 2.4
+     */
+    private static Set<String> withProjectFile(Set<String> changed) {
+        Set<String> result = new LinkedHashSet<String>(changed);
+        result.add(".project");
+        return result;
+    }
+
     /**
      * Exports a SVN repository or a sub path to a given directory.
      * 
-     * @param url The URL (absolute path) to a folder to export
+     * @param destination The path in/to the repository to be exported
      * @param revision The revision to be exported
      * @param exportEditor A (reusable) export editor object
-
+     * @param userSpecific <tt>true</tt>Creates a user specific destination, <tt>false</tt> creates a reviewer location
+     *     that provides an URL to export all submissions.
      * @throws SVNException A wrapping exception in the case of (communication) errors
      * 
-     * @since 2.1
+     * @since 1.00
      */
-    private void svnExport(String url, long revision, ExportEditor exportEditor) throws SVNException {
+    private void svnExport(SubmissionTarget destination, long revision, ExportEditor exportEditor, boolean userSpecific)
+        throws SVNException {
         
-        SVNRepository tmprepo = SVNRepositoryFactory.create(SVNURL.parseURIEncoded(url));
-        tmprepo.setAuthenticationManager(createAuthenticationManager());
-        tmprepo.checkout(revision, null, true, exportEditor);
-        tmprepo.closeSession();
+        String url = userSpecific ? destination.getSubmissionURL() : destination.getAllSubmissionsURL();
+        SvnExporter.export(url, revision, exportEditor, null, createAuthenticationManager());
     }
     
 //    /**
@@ -1722,7 +1975,7 @@ public class SvnSubmissionCommunication extends SubmissionCommunication {
         if (null != logRepository) {
             ByteArrayOutputStream out = new ByteArrayOutputStream();
             try {
-                SubmissionTarget dest = getStudentMgmtProtocol().getPathToSubmission(task);
+                SubmissionTarget dest = assignments.getPathToSubmission(task);
                 logRepository.getFile(dest.getAbsolutePathInRepository() + "/review.txt", -1, null, out);
                 result = out.toString();
                 out.close();
@@ -0,0 +1,250 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.tmatesoft.svn.core.SVNDirEntry;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNNodeKind;
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.Activator;
+import de.uni_hildesheim.sse.exerciseSubmitter.configuration.IConfiguration;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.CommunicationException;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.IPathFactory;
+
+/**
+ * Replays all submissions of a task into a target directory, one directory
+ * per submission. Submissions replayed before are updated incrementally (see
+ * {@link SvnExporter#sync(String, long, ExportEditor, java.util.Map,
+ * ISVNAuthenticationManager)}). Progress is recorded in a {@link ReplayJournal}, i.e., an
+ * interrupted replay resumes where it stopped. Submissions failing to replay
+ * are retried up to <code>replay.retries</code> times (default 3) with an
+ * exponential backoff starting at one second. Submissions still failing are
+ * reported in the end (see {@link #getFailure()}) while all others are
+ * replayed.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class TaskReplay {
+
+    /**
+     * Stores the configuration key of the number of retries.
+     *
+     * @since 2.4
+     */
+    static final String CONFIG_RETRIES = "replay.retries";
+
+    /**
+     * Stores the default number of retries.
+     *
+     * @since 2.4
+     */
+    private static final int DEFAULT_RETRIES = 3;
+
+    /**
+     * Stores the initial backoff in milliseconds, doubled for each retry.
+     *
+     * @since 2.4
+     */
+    private static final long BACKOFF = 1000;
+
+    /**
+     * Stores the URL of all submissions of the task.
+     *
+     * @since 2.4
+     */
+    private String url;
+
+    /**
+     * Stores the target directory.
+     *
+     * @since 2.4
+     */
+    private File path;
+
+    /**
+     * Stores the factory creating the submission directories.
+     *
+     * @since 2.4
+     */
+    private IPathFactory factory;
+
+    /**
+     * Stores the (reusable) export editor.
+     *
+     * @since 2.4
+     */
+    private ExportEditor exportEditor;
+
+    /**
+     * Stores the authentication manager for the sessions.
+     *
+     * @since 2.4
+     */
+    private ISVNAuthenticationManager authManager;
+
+    /**
+     * Stores the journal of the replay.
+     *
+     * @since 2.4
+     */
+    private ReplayJournal journal;
+
+    /**
+     * Stores the directories of the replayed submissions.
+     *
+     * @since 2.4
+     */
+    private List<File> replayed = new ArrayList<File>();
+
+    /**
+     * Stores the names of the failed submissions mapped to their last
+     * exception.
+     *
+     * @since 2.4
+     */
+    private Map<String, SVNException> failed = new TreeMap<String, SVNException>();
+
+    /**
+     * Creates a new task replay.
+     *
+     * @param url the URL of all submissions of the task
+     * @param path the target directory
+     * @param factory the factory creating the submission directories
+     * @param exportEditor the (reusable) export editor defining the elements
+     *        to be replayed and an optional progress listener
+     * @param authManager the authentication manager for the sessions
+     *
+     * @since 2.4
+     */
+    TaskReplay(String url, File path, IPathFactory factory, ExportEditor exportEditor,
+        ISVNAuthenticationManager authManager) {
+        this.url = url;
+        this.path = path;
+        this.factory = factory;
+        this.exportEditor = exportEditor;
+        this.authManager = authManager;
+        this.journal = ReplayJournal.open(path, url, exportEditor.getReplayOptions());
+    }
+
+    /**
+     * Replays the given submissions including retries.
+     *
+     * @param dirs the entries of the submission directories
+     *
+     * @since 2.4
+     */
+    void replay(Collection<SVNDirEntry> dirs) {
+        List<SVNDirEntry> pending = new ArrayList<SVNDirEntry>();
+        for (SVNDirEntry entry : dirs) {
+            if (entry.getKind() == SVNNodeKind.DIR) {
+                pending.add(entry);
+            }
+        }
+        int retries;
+        try {
+            retries = Integer.parseInt(IConfiguration.INSTANCE.getProperty(CONFIG_RETRIES,
+                String.valueOf(DEFAULT_RETRIES)).trim());
+        } catch (NumberFormatException e) {
+            retries = DEFAULT_RETRIES;
+        }
+        pending = replay(pending);
+        for (int retry = 0; !pending.isEmpty() && retry < retries && sleep(BACKOFF << retry); retry++) {
+            pending = replay(pending);
+        }
+        if (failed.isEmpty()) {
+            journal.delete();
+        }
+    }
+
+    /**
+     * Replays the given submissions once. Submissions recorded in the
+     * journal are skipped.
+     *
+     * @param entries the entries of the submission directories
+     * @return the failed entries
+     *
+     * @since 2.4
+     */
+    private List<SVNDirEntry> replay(List<SVNDirEntry> entries) {
+        List<SVNDirEntry> result = new ArrayList<SVNDirEntry>();
+        for (SVNDirEntry entry : entries) {
+            String name = entry.getName();
+            File target = factory.createPath(path, name);
+            String[] contents = target.list();
+            try {
+                if (!journal.isDone(name, entry.getRevision()) || null == contents || 0 == contents.length) {
+                    // transfers only the deltas if the submission was replayed before
+                    exportEditor.setTargetDirectory(target);
+                    SvnExporter.sync(url + "/" + name, entry.getRevision(), exportEditor, null, authManager);
+                    journal.done(name, entry.getRevision());
+                }
+                replayed.add(target);
+                failed.remove(name);
+            } catch (SVNException e) {
+                if (IConfiguration.INSTANCE.isDebuggingEnabled()) {
+                    Activator.log("ExerciseSubmitter: replaying " + name + " failed", e);
+                }
+                failed.put(name, e);
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Waits before the next retry.
+     *
+     * @param millis the time to wait in milliseconds
+     * @return <code>true</code> if the replay shall be retried,
+     *         <code>false</code> if waiting was interrupted
+     *
+     * @since 2.4
+     */
+    private static boolean sleep(long millis) {
+        boolean result = true;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = false;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the directories of the replayed submissions.
+     *
+     * @return the directories
+     *
+     * @since 2.4
+     */
+    List<File> getReplayed() {
+        return replayed;
+    }
+
+    /**
+     * Returns a summary of the failed submissions.
+     *
+     * @return an exception naming the failed submissions caused by the
+     *         first failure, <b>null</b> if all submissions were replayed
+     *
+     * @since 2.4
+     */
+    CommunicationException getFailure() {
+        CommunicationException result = null;
+        if (!failed.isEmpty()) {
+            result = new CommunicationException(new CommunicationException.DetailedMessage(
+                CommunicationException.SubmissionPublicMessage.INCOMPLETE_REPLAY,
+                "Please check: " + String.join(", ", failed.keySet())), failed.values().iterator().next());
+        }
+        return result;
+    }
+
+}
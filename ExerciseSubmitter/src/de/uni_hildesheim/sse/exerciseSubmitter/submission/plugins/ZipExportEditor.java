@@ -0,0 +1,366 @@
+package de.uni_hildesheim.sse.exerciseSubmitter.submission.plugins;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.tmatesoft.svn.core.SVNCommitInfo;
+import org.tmatesoft.svn.core.SVNDepth;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNPropertyValue;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaProcessor;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.ISubmission;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.ProgressListener;
+import de.uni_hildesheim.sse.exerciseSubmitter.submission.ReplayOptions;
+
+/**
+ * Exports submissions straight into a ZIP archive. Each submission becomes
+ * a top-level directory of the archive and each file one entry. The
+ * directory of a submission is written with its first element, i.e., empty
+ * submissions are omitted without listing them in advance. The text
+ * deltas sent by the server are applied directly to the archive stream,
+ * i.e., no intermediate files are created and the memory consumption does
+ * not depend on the size of the submissions. As the archive cannot be
+ * rewritten, a file not matching the checksum sent by the server fails the
+ * export.
+ *
+ * @since 2.4
+ * @version 2.4
+ */
+class ZipExportEditor implements ISVNEditor {
+
+    /**
+     * Stores the archive stream.
+     *
+     * @since 2.4
+     */
+    private ZipOutputStream out;
+
+    /**
+     * Stores a view on {@link #out} which is not closed by the delta
+     * processor.
+     *
+     * @since 2.4
+     */
+    private OutputStream entryStream;
+
+    /**
+     * Stores the optional progress listener.
+     *
+     * @since 2.4
+     */
+    private ProgressListener<ISubmission> listener;
+
+    /**
+     * Stores the elements to be exported.
+     *
+     * @since 2.4
+     */
+    private ReplayOptions options = ReplayOptions.ALL;
+
+    /**
+     * Stores the delta processor.
+     *
+     * @since 2.4
+     */
+    private SVNDeltaProcessor deltaProcessor = new SVNDeltaProcessor();
+
+    /**
+     * Stores the entry name of the submission being exported (ending with
+     * <code>/</code>).
+     *
+     * @since 2.4
+     */
+    private String prefix = "";
+
+    /**
+     * Stores whether the directory entry of the submission being exported is
+     * not written yet.
+     *
+     * @since 2.4
+     */
+    private boolean pending;
+
+    /**
+     * Stores whether the contents of the current file are skipped.
+     *
+     * @since 2.4
+     */
+    private boolean skipping;
+
+    /**
+     * Stores the MD5 checksums of the written files which are not closed
+     * yet.
+     *
+     * @since 2.4
+     */
+    private Map<String, String> written = new HashMap<String, String>();
+
+    /**
+     * Stores the current progress step.
+     *
+     * @since 2.4
+     */
+    private int step;
+
+    /**
+     * Creates a new ZIP export editor.
+     *
+     * @param out the stream to write the archive to, not closed by this
+     *        editor
+     * @param listener an optional progress listener, may be <b>null</b>
+     *
+     * @since 2.4
+     */
+    ZipExportEditor(OutputStream out, ProgressListener<ISubmission> listener) {
+        this.out = new ZipOutputStream(out);
+        this.listener = listener;
+        if (null != listener) {
+            step = listener.getStep();
+        }
+        entryStream = new FilterOutputStream(this.out) {
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                this.out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    /**
+     * Defines the elements to be exported.
+     *
+     * @param options the elements to be exported
+     *
+     * @since 2.4
+     */
+    void setReplayOptions(ReplayOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Exports a submission into the archive. Elements not accepted by the
+     * replay options are excluded in the request as far as possible.
+     *
+     * @param repository a session located at the submission
+     * @param revision the revision to be exported
+     * @param name the name of the submission, i.e., of its directory in the
+     *        archive
+     * @throws SVNException in the case of (communication) errors or checksum
+     *         mismatches
+     *
+     * @since 2.4
+     */
+    void export(SVNRepository repository, long revision, String name) throws SVNException {
+        prefix = name + "/";
+        pending = true;
+        if (options.isFiltering()) {
+            SVNDepth depth = ReplayReporter.toDepth(options);
+            repository.update(revision, null, depth, false, new ReplayReporter(revision, true, depth,
+                ReplayReporter.getExcludedPaths(repository, revision, options), Collections.<String>emptyList()),
+                this);
+        } else {
+            repository.checkout(revision, null, true, this);
+        }
+    }
+
+    /**
+     * Completes the archive. The underlying stream is not closed.
+     *
+     * @throws SVNException if the archive cannot be written
+     *
+     * @since 2.4
+     */
+    void finish() throws SVNException {
+        try {
+            out.finish();
+        } catch (IOException e) {
+            throw createException(prefix, e);
+        }
+    }
+
+    /**
+     * Writes an entry without contents.
+     *
+     * @param name the name of the entry (ending with <code>/</code> for
+     *        directories)
+     * @throws SVNException if the archive cannot be written
+     *
+     * @since 2.4
+     */
+    private void putEntry(String name) throws SVNException {
+        putSubmissionEntry();
+        try {
+            out.putNextEntry(new ZipEntry(name));
+            out.closeEntry();
+        } catch (IOException e) {
+            throw createException(name, e);
+        }
+    }
+
+    /**
+     * Writes the directory entry of the submission being exported before its
+     * first element.
+     *
+     * @throws SVNException if the archive cannot be written
+     *
+     * @since 2.4
+     */
+    private void putSubmissionEntry() throws SVNException {
+        if (pending) {
+            pending = false;
+            putEntry(prefix);
+        }
+    }
+
+    /**
+     * Creates an exception for a failed archive operation.
+     *
+     * @param name the name of the affected entry
+     * @param cause the cause
+     * @return the exception
+     *
+     * @since 2.4
+     */
+    private static SVNException createException(String name, IOException cause) {
+        SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.IO_ERROR,
+            "error: cannot write ''{0}'' to the archive", name);
+        return new SVNException(err, cause);
+    }
+
+    @Override
+    public void targetRevision(long revision) throws SVNException {
+    }
+
+    @Override
+    public void openRoot(long revision) throws SVNException {
+    }
+
+    @Override
+    public void addDir(String path, String copyFromPath, long copyFromRevision) throws SVNException {
+        if (options.accepts(path, true)) {
+            putEntry(prefix + path + "/");
+        }
+    }
+
+    @Override
+    public void openDir(String path, long revision) throws SVNException {
+    }
+
+    @Override
+    public void changeDirProperty(String name, SVNPropertyValue value) throws SVNException {
+    }
+
+    @Override
+    public void addFile(String path, String copyFromPath, long copyFromRevision) throws SVNException {
+        skipping = !options.accepts(path, false);
+        if (!skipping && null != listener) {
+            listener.notifyNextStep(prefix + path);
+        }
+    }
+
+    @Override
+    public void openFile(String path, long revision) throws SVNException {
+        // exports only add files
+        skipping = !options.accepts(path, false);
+    }
+
+    @Override
+    public void changeFileProperty(String path, String propertyName, SVNPropertyValue propertyValue)
+        throws SVNException {
+    }
+
+    @Override
+    public void applyTextDelta(String path, String baseChecksum) throws SVNException {
+        if (!skipping) {
+            putSubmissionEntry();
+            try {
+                out.putNextEntry(new ZipEntry(prefix + path));
+            } catch (IOException e) {
+                throw createException(prefix + path, e);
+            }
+            deltaProcessor.applyTextDelta(SVNFileUtil.DUMMY_IN, entryStream, true);
+        }
+    }
+
+    @Override
+    public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
+        return skipping ? SVNFileUtil.DUMMY_OUT : deltaProcessor.textDeltaChunk(diffWindow);
+    }
+
+    @Override
+    public void textDeltaEnd(String path) throws SVNException {
+        if (!skipping) {
+            // the contents are complete, the next file may start before this one is closed
+            written.put(path, deltaProcessor.textDeltaEnd());
+            try {
+                out.closeEntry();
+            } catch (IOException e) {
+                throw createException(prefix + path, e);
+            }
+        }
+    }
+
+    @Override
+    public void closeFile(String path, String textChecksum) throws SVNException {
+        if (options.accepts(path, false)) {
+            String checksum = written.remove(path);
+            if (null == checksum) {
+                // no delta for an empty file
+                putEntry(prefix + path);
+            } else if (null != textChecksum && !textChecksum.equals(checksum)) {
+                SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.CHECKSUM_MISMATCH,
+                    "error: checksum mismatch for ''{0}'', expected ''{1}'', actual ''{2}''",
+                    new Object[] {prefix + path, textChecksum, checksum});
+                throw new SVNException(err);
+            }
+            if (null != listener) {
+                listener.processedStep(++step);
+            }
+        }
+        skipping = false;
+    }
+
+    @Override
+    public void closeDir() throws SVNException {
+    }
+
+    @Override
+    public void deleteEntry(String path, long revision) throws SVNException {
+    }
+
+    @Override
+    public void absentDir(String path) throws SVNException {
+    }
+
+    @Override
+    public void absentFile(String path) throws SVNException {
+    }
+
+    @Override
+    public SVNCommitInfo closeEdit() throws SVNException {
+        return null;
+    }
+
+    @Override
+    public void abortEdit() throws SVNException {
+    }
+
+}